@@ -51,6 +51,17 @@ public class AbstractJdbcConfiguration extends AbstractConfiguration {
 	private String validConnectionQuery;
 	private String datasource = EMPTY_STRING;
 	private String[] JNDIProperties;
+	private int fetchSize = 0;
+	private int connectionPoolMaxSize = 10;
+	private long connectionPoolBorrowTimeout = 30000;
+	private long connectionPoolValidationInterval = 10000;
+	private int preparedStatementCacheSize = 50;
+	private int batchSize = 100;
+	private String dialect = EMPTY_STRING;
+	private long schemaCacheTimeToLive = 600000;
+	private int maxSizeOfLargeObject = 0;
+	private String largeObjectOverflow = LargeObjectReader.OVERFLOW_SKIP;
+	private boolean useVirtualThreads = false;
 	
 	
 	@ConfigurationProperty(order = 1, displayMessageKey = "HOST_DISPLAY_NAME", helpMessageKey = "HOST_HELP")
@@ -197,6 +208,105 @@ public class AbstractJdbcConfiguration extends AbstractConfiguration {
 		this.JNDIProperties = JNDIProperties;
 	}
 	
+	@ConfigurationProperty(order = 18, displayMessageKey = "FETCH_SIZE_DISPLAY_NAME", helpMessageKey = "FETCH_SIZE_HELP")
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+	
+	@ConfigurationProperty(order = 19, displayMessageKey = "CONNECTION_POOL_MAX_SIZE_DISPLAY_NAME", helpMessageKey = "CONNECTION_POOL_MAX_SIZE_HELP")
+	public int getConnectionPoolMaxSize() {
+		return connectionPoolMaxSize;
+	}
+
+	public void setConnectionPoolMaxSize(int connectionPoolMaxSize) {
+		this.connectionPoolMaxSize = connectionPoolMaxSize;
+	}
+	
+	@ConfigurationProperty(order = 20, displayMessageKey = "CONNECTION_POOL_BORROW_TIMEOUT_DISPLAY_NAME", helpMessageKey = "CONNECTION_POOL_BORROW_TIMEOUT_HELP")
+	public long getConnectionPoolBorrowTimeout() {
+		return connectionPoolBorrowTimeout;
+	}
+
+	public void setConnectionPoolBorrowTimeout(long connectionPoolBorrowTimeout) {
+		this.connectionPoolBorrowTimeout = connectionPoolBorrowTimeout;
+	}
+	
+	@ConfigurationProperty(order = 21, displayMessageKey = "CONNECTION_POOL_VALIDATION_INTERVAL_DISPLAY_NAME", helpMessageKey = "CONNECTION_POOL_VALIDATION_INTERVAL_HELP")
+	public long getConnectionPoolValidationInterval() {
+		return connectionPoolValidationInterval;
+	}
+
+	public void setConnectionPoolValidationInterval(long connectionPoolValidationInterval) {
+		this.connectionPoolValidationInterval = connectionPoolValidationInterval;
+	}
+	
+	@ConfigurationProperty(order = 22, displayMessageKey = "PREPARED_STATEMENT_CACHE_SIZE_DISPLAY_NAME", helpMessageKey = "PREPARED_STATEMENT_CACHE_SIZE_HELP")
+	public int getPreparedStatementCacheSize() {
+		return preparedStatementCacheSize;
+	}
+
+	public void setPreparedStatementCacheSize(int preparedStatementCacheSize) {
+		this.preparedStatementCacheSize = preparedStatementCacheSize;
+	}
+	
+	@ConfigurationProperty(order = 23, displayMessageKey = "BATCH_SIZE_DISPLAY_NAME", helpMessageKey = "BATCH_SIZE_HELP")
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	
+	@ConfigurationProperty(order = 24, displayMessageKey = "DIALECT_DISPLAY_NAME", helpMessageKey = "DIALECT_HELP")
+	public String getDialect() {
+		return dialect;
+	}
+
+	public void setDialect(String dialect) {
+		this.dialect = dialect;
+	}
+	
+	@ConfigurationProperty(order = 25, displayMessageKey = "SCHEMA_CACHE_TIME_TO_LIVE_DISPLAY_NAME", helpMessageKey = "SCHEMA_CACHE_TIME_TO_LIVE_HELP")
+	public long getSchemaCacheTimeToLive() {
+		return schemaCacheTimeToLive;
+	}
+
+	public void setSchemaCacheTimeToLive(long schemaCacheTimeToLive) {
+		this.schemaCacheTimeToLive = schemaCacheTimeToLive;
+	}
+	
+	@ConfigurationProperty(order = 26, displayMessageKey = "MAX_SIZE_OF_LARGE_OBJECT_DISPLAY_NAME", helpMessageKey = "MAX_SIZE_OF_LARGE_OBJECT_HELP")
+	public int getMaxSizeOfLargeObject() {
+		return maxSizeOfLargeObject;
+	}
+
+	public void setMaxSizeOfLargeObject(int maxSizeOfLargeObject) {
+		this.maxSizeOfLargeObject = maxSizeOfLargeObject;
+	}
+	
+	@ConfigurationProperty(order = 27, displayMessageKey = "LARGE_OBJECT_OVERFLOW_DISPLAY_NAME", helpMessageKey = "LARGE_OBJECT_OVERFLOW_HELP")
+	public String getLargeObjectOverflow() {
+		return largeObjectOverflow;
+	}
+
+	public void setLargeObjectOverflow(String largeObjectOverflow) {
+		this.largeObjectOverflow = largeObjectOverflow;
+	}
+	
+	@ConfigurationProperty(order = 28, displayMessageKey = "USE_VIRTUAL_THREADS_DISPLAY_NAME", helpMessageKey = "USE_VIRTUAL_THREADS_HELP")
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+	
 	@Override
 	public void validate() {
 		LOGGER.info("Validate Configuration.");
@@ -234,14 +344,40 @@ public class AbstractJdbcConfiguration extends AbstractConfiguration {
 			JdbcUtil.convertArrayToProperties(getJNDIProperties());
 		}
 		
+		if(getFetchSize() < 0){
+			throw new IllegalArgumentException("Configuration parameter 'Fetch size' can not be negative.");
+		}
+		if(getConnectionPoolMaxSize() < 1){
+			throw new IllegalArgumentException("Configuration parameter 'Connection pool max size' has to be greater than zero.");
+		}
+		if(getConnectionPoolBorrowTimeout() < 0 || getConnectionPoolValidationInterval() < 0){
+			throw new IllegalArgumentException("Timeouts of the connection pool can not be negative.");
+		}
+		if(getPreparedStatementCacheSize() < 0){
+			throw new IllegalArgumentException("Configuration parameter 'Prepared statement cache size' can not be negative.");
+		}
+		if(getSchemaCacheTimeToLive() < 0){
+			throw new IllegalArgumentException("Configuration parameter 'Schema cache time to live' can not be negative.");
+		}
+		if(getMaxSizeOfLargeObject() < 0){
+			throw new IllegalArgumentException("Configuration parameter 'Max size of large object' can not be negative.");
+		}
+		if(!(LargeObjectReader.OVERFLOW_SKIP.equalsIgnoreCase(getLargeObjectOverflow())
+				|| LargeObjectReader.OVERFLOW_TRUNCATE.equalsIgnoreCase(getLargeObjectOverflow()))){
+			throw new IllegalArgumentException("Large object overflow has invalid value: '" + getLargeObjectOverflow() + "'");
+		}
+		if(getBatchSize() < 1){
+			throw new IllegalArgumentException("Configuration parameter 'Batch size' has to be greater than zero.");
+		}
+		
 		String quoting = getQuoting();
-		if(!(quoting.equalsIgnoreCase("NONE") || quoting.equalsIgnoreCase("SINGLE") || quoting.equalsIgnoreCase("DOUBLE")
-				|| quoting.equalsIgnoreCase("BACK") || quoting.equalsIgnoreCase("BRACKETS"))){
-			throw new IllegalArgumentException("Quoting ''"+quoting+"'' has invalid structure.");
+		SQLDialect.parseQuoting(quoting);
+		if(StringUtil.isNotBlank(getDialect())){
+			SQLDialect.create(getDialect(), quoting);
 		}
 		
 		String timestampPresentation = getTimestampPresentation();
-		if(!(timestampPresentation.equalsIgnoreCase("UnixEpoch") || quoting.equalsIgnoreCase("string"))){
+		if(!TemporalConverter.isValidPresentation(timestampPresentation)){
 			throw new IllegalArgumentException("Timestamp Presentation mode has invalid value: '" + timestampPresentation + "'");
 		}
 		
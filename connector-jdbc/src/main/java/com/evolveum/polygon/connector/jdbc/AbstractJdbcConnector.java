@@ -15,15 +15,22 @@
  */
 package com.evolveum.polygon.connector.jdbc;
 
+import java.math.BigInteger;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,14 +43,16 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.common.logging.Log;
 import org.identityconnectors.common.security.GuardedString;
 import org.identityconnectors.framework.common.exceptions.ConnectorException;
 import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
 import org.identityconnectors.framework.common.objects.Attribute;
-import org.identityconnectors.framework.common.objects.AttributeBuilder;
 import org.identityconnectors.framework.common.objects.AttributeInfo;
 import org.identityconnectors.framework.common.objects.AttributeInfoBuilder;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.filter.Filter;
 import org.identityconnectors.framework.spi.Configuration;
 import org.identityconnectors.framework.spi.Connector;
 
@@ -55,24 +64,20 @@ public class AbstractJdbcConnector<C extends AbstractJdbcConfiguration> implemen
 
 	private C configuration;
 	private Connection connection;
-	private Map<String, Integer> sqlTypes = new HashMap<String, Integer>();
-	private List<String> namesOfRequiredColumns = new ArrayList<String>();
+	private JdbcConnectionPool connectionPool;
+	private SQLDialect dialect;
+	private volatile Map<String, Integer> sqlTypes = Collections.emptyMap();
+	private volatile List<String> namesOfRequiredColumns = Collections.emptyList();
 	
 	private static final Log LOGGER = Log.getLog(AbstractJdbcConnector.class);
 
 	
 	@Override
 	public void dispose() {
-		try {
-			if(connection != null && !connection.isClosed()){
-				this.connection.close();
-				this.connection = null;
-			}
-		} catch (SQLException ex) {
-			LOGGER.error(ex.getMessage());
-			if(rethrowSQLException(ex.getErrorCode())){
-				throw new ConnectorException(ex.getMessage(), ex);
-			}
+		releaseConnection();
+		if(connectionPool != null){
+			connectionPool.release();
+			connectionPool = null;
 		}
 	}
 
@@ -85,25 +90,144 @@ public class AbstractJdbcConnector<C extends AbstractJdbcConfiguration> implemen
 	@Override
 	public void init(Configuration configuration) {
 		LOGGER.info("Initialize");
-		this.connection = openConnection((C) configuration);
-		this.configuration = (C) configuration;
+		C config = (C) configuration;
+		this.configuration = config;
+		this.connectionPool = JdbcConnectionPool.acquire(config, new ConfigurationConnectionFactory(config));
+		// connectivity is checked, but the connection is not held by the instance
+		try {
+			getConnection();
+			releaseConnection();
+		} catch (RuntimeException e) {
+			// instance which failed to initialize is not disposed by the framework
+			this.connectionPool.release();
+			this.connectionPool = null;
+			throw e;
+		}
 	}
 	
 	/**
+	 * Returns the connection of this connector instance, the connection is borrowed
+	 * from the shared pool when the instance does not hold any. The connection is held until
+	 * {@link #releaseConnection()} or {@link #dispose()}. Operations of this class borrow
+	 * the connection only for their duration when the instance does not hold any.
+	 * 
 	 * @return the conn
+	 * @throws ConnectorException when no connection can be borrowed from the pool
 	 */
 	public Connection getConnection() {
+		if(connection == null && connectionPool != null){
+			try {
+				connection = connectionPool.borrow();
+			} catch (SQLException ex) {
+				LOGGER.error(ex.getMessage());
+				throw new ConnectorException(ex.getMessage(), ex);
+			}
+		}
 		return connection;
 	}
 	
 	/**
-	 * @return the sqlTypes
+	 * Borrows the connection for one operation when this instance does not hold any.
+	 * 
+	 * @return true when the connection was borrowed by this call, it is returned by {@link #endOperation(boolean)}
+	 */
+	private boolean beginOperation() {
+		boolean borrowed = connection == null;
+		getConnection();
+		return borrowed;
+	}
+	
+	private void endOperation(boolean borrowed) {
+		if(borrowed){
+			releaseConnection();
+		}
+	}
+	
+	/**
+	 * @return pool of connections shared by connector instances with the same configuration
+	 */
+	public JdbcConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+	
+	/**
+	 * Returns the SQL dialect selected by the configuration, or detected from the metadata of the database
+	 * when no dialect is configured. Builders created with this dialect apply the configured quoting.
+	 */
+	public SQLDialect getDialect() {
+		if(dialect == null){
+			String nameOfDialect = getConfiguration().getDialect();
+			if(StringUtil.isBlank(nameOfDialect)){
+				nameOfDialect = SQLDialect.GENERIC;
+				boolean borrowed = beginOperation();
+				try {
+					Connection conn = getConnection();
+					if(conn != null){
+						nameOfDialect = SQLDialect.detectNameOfDialect(conn.getMetaData().getDatabaseProductName());
+					}
+				} catch (SQLException ex) {
+					LOGGER.warn("It was not possible to detect SQL dialect, generic dialect is used: {0}", ex.getMessage());
+				} finally {
+					endOperation(borrowed);
+				}
+			}
+			dialect = SQLDialect.create(nameOfDialect, getConfiguration().getQuoting());
+			LOGGER.ok("Used SQL dialect: {0}", dialect);
+		}
+		return dialect;
+	}
+	
+	/**
+	 * @return cache of prepared statements of the current connection, or null when caching is disabled
+	 */
+	public PreparedStatementCache getStatementCache() {
+		Connection conn = getConnection();
+		if(conn == null || connectionPool == null){
+			return null;
+		}
+		return connectionPool.getStatementCache(conn);
+	}
+	
+	/**
+	 * Returns the connection of this instance back to the pool, next call of {@link #getConnection()}
+	 * borrows a connection again.
+	 */
+	protected void releaseConnection() {
+		if(connection != null){
+			if(connectionPool != null){
+				connectionPool.giveBack(connection);
+			} else {
+				try {
+					connection.close();
+				} catch (SQLException ex) {
+					LOGGER.error(ex.getMessage());
+				}
+			}
+			connection = null;
+		}
+	}
+	
+	/**
+	 * Discards the connection of this instance when it does not pass validation anymore,
+	 * so that the next operation does not fail on the same broken socket.
+	 */
+	protected void checkConnectionAfterFailure() {
+		if(connection != null && connectionPool != null && !connectionPool.isValid(connection)){
+			LOGGER.warn("Connection is broken, it will be replaced by new one.");
+			connectionPool.invalidate(connection);
+			connection = null;
+		}
+	}
+	
+	/**
+	 * @return SQL types of the table used by the last call of {@link #buildAttributeInfosFromTable(String, String, List)},
+	 * prefer {@link #getSqlTypes(String, String)}
 	 */
 	public Map<String, Integer> getSqlTypes() {
 		return sqlTypes;
 	}
 	
-	private Connection openConnection(C config){
+	private static Connection openConnection(AbstractJdbcConfiguration config) throws SQLException {
 		GuardedString password = config.getUserPassword();
 		String username = config.getUsername();
 		String[] prop = config.getJNDIProperties();
@@ -138,18 +262,14 @@ public class AbstractJdbcConnector<C extends AbstractJdbcConfiguration> implemen
 		
 		} catch (ClassNotFoundException e) {
 			LOGGER.error("Selected JDBC Driver "+ config.getJdbcDriver() +" is not found on classpath. " + e);
-		} catch (SQLException ex) {
-			LOGGER.error(ex.getMessage());
-			if(rethrowSQLException(ex.getErrorCode())){
-				throw new ConnectorException(ex.getMessage(), ex);
-			}
+			throw new SQLException("Selected JDBC Driver "+ config.getJdbcDriver() +" is not found on classpath.", e);
 		} catch (NamingException e) {
 			LOGGER.error("It was not possible constructs an initial context using the supplied environment. " + e);
+			throw new SQLException("It was not possible constructs an initial context using the supplied environment.", e);
 		}
-		return null;
 	}
 	
-	private String convertPasswordAsClearText(GuardedString pass){
+	private static String convertPasswordAsClearText(GuardedString pass){
 		final StringBuilder sbPass = new StringBuilder();
 		pass.access(new GuardedString.Accessor() {
 			@Override
@@ -160,107 +280,666 @@ public class AbstractJdbcConnector<C extends AbstractJdbcConfiguration> implemen
 		return sbPass.toString();
 	}
 	
+	/**
+	 * Opens connections from the configuration only, so that the pool shared by connector instances
+	 * does not keep the instance which created it reachable.
+	 */
+	private static class ConfigurationConnectionFactory implements JdbcConnectionPool.ConnectionFactory {
+		
+		private final AbstractJdbcConfiguration config;
+		
+		private ConfigurationConnectionFactory(AbstractJdbcConfiguration config) {
+			this.config = config;
+		}
+		
+		@Override
+		public Connection openConnection() throws SQLException {
+			return AbstractJdbcConnector.openConnection(config);
+		}
+	}
+	
 	public List<List<Attribute>> executeQueryOnTable(String sql, List<SQLParameter> sqlValuesOfParameters){
-		return execute(sql, sqlValuesOfParameters, true);
+		final List<List<Attribute>> ret = new ArrayList<List<Attribute>>();
+		execute(sql, sqlValuesOfParameters, new RowHandler() {
+			@Override
+			public boolean handle(List<Attribute> row) {
+				ret.add(row);
+				return true;
+			}
+		});
+		return ret;
 	}
 	
 	public List<List<Attribute>> executeQueryOnTable(String sql){
-		return execute(sql, null, true);
+		return executeQueryOnTable(sql, (List<SQLParameter>) null);
 	}
 	
-	public void executeUpdateOnTable(String sql, List<SQLParameter> sqlValuesOfParameters){
-		execute(sql, sqlValuesOfParameters, false);
+	/**
+	 * Executes the query and hands every row over to the handler as soon as it is decoded,
+	 * so the whole result set is never held in memory. The statement and the result set
+	 * are closed when the result set is exhausted or when the handler returns false.
+	 */
+	public void executeQueryOnTable(String sql, List<SQLParameter> sqlValuesOfParameters, RowHandler handler){
+		if(handler == null){
+			throw new IllegalArgumentException("Row handler can not be null.");
+		}
+		execute(sql, sqlValuesOfParameters, handler);
 	}
 	
-	public void executeUpdateOnTable(String sql){
-		execute(sql, null, false);
+	public void executeQueryOnTable(String sql, RowHandler handler){
+		executeQueryOnTable(sql, null, handler);
 	}
 	
-	private List<List<Attribute>> execute(String sql, List<SQLParameter> sqlValuesOfParameters, boolean queryOrUpdate){
-		LOGGER.info("Execute qsl request: {0}", sql);
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
-		List<List<Attribute>> ret = new ArrayList<List<Attribute>>();
+	/**
+	 * Streams the query like {@link #executeQueryOnTable(String, List, RowHandler)}, but large object
+	 * columns (BLOB, CLOB...) are read only when they are contained in attributes to get of the options.
+	 * 
+	 * @param options null means that all columns are read
+	 */
+	public void executeQueryOnTable(String sql, List<SQLParameter> sqlValuesOfParameters, OperationOptions options, RowHandler handler){
+		if(handler == null){
+			throw new IllegalArgumentException("Row handler can not be null.");
+		}
+		execute(sql, sqlValuesOfParameters, getAttributesToGet(options), handler);
+	}
+	
+	/**
+	 * @return null for all columns when there are no options, no large object columns when the options
+	 * do not contain attributes to get
+	 */
+	private Collection<String> getAttributesToGet(OperationOptions options) {
+		if(options == null){
+			return null;
+		}
+		if(options.getAttributesToGet() == null){
+			return Collections.emptyList();
+		}
+		return Arrays.asList(options.getAttributesToGet());
+	}
+	
+	/**
+	 * Reads the select page by page with keyset cursor on the key column, every page is one query
+	 * 'WHERE key > ? ORDER BY key' limited to the page size. Rows are handed over to the handler
+	 * until the last page is read or the handler returns false.
+	 * 
+	 * @param select select without ORDER BY clause, the keyset cursor is set by this method
+	 * @param nameOfTable table of the select, SQL type of the key is taken from its metadata
+	 */
+	public void executePagedQueryOnTable(SelectSQLBuilder select, String nameOfTable, String keyNameOfTable, int pageSize, final RowHandler handler){
+		executePagedQueryOnTable(select, nameOfTable, keyNameOfTable, pageSize, null, handler);
+	}
+	
+	/**
+	 * Reads the select page by page like {@link #executePagedQueryOnTable(SelectSQLBuilder, String, String, int, RowHandler)},
+	 * large object columns are read only when they are contained in attributes to get of the options.
+	 * 
+	 * @param options null means that all columns are read
+	 */
+	public void executePagedQueryOnTable(SelectSQLBuilder select, String nameOfTable, String keyNameOfTable, int pageSize, OperationOptions options, final RowHandler handler){
+		if(handler == null){
+			throw new IllegalArgumentException("Row handler can not be null.");
+		}
+		if(pageSize < 1){
+			throw new IllegalArgumentException("Page size has to be greater than zero.");
+		}
+		final String nameOfKey = keyNameOfTable.toLowerCase();
+		Integer typeOfKey = getSqlTypes(nameOfTable, keyNameOfTable).get(nameOfKey);
+		final int sqlTypeOfKey = typeOfKey == null ? Types.NULL : typeOfKey;
+		final SQLParameter[] lastKey = new SQLParameter[1];
+		final int[] countOfRows = new int[1];
+		final boolean[] stopped = new boolean[1];
 		
-		try {
-			pstmt = getConnection().prepareStatement(sql);
-			if(sql.contains("?") && sqlValuesOfParameters != null){
-				JdbcUtil.setSqlParameters(pstmt, sql, sqlValuesOfParameters);
+		select.setPageSize(pageSize);
+		do {
+			select.setKeysetCursor(keyNameOfTable, lastKey[0]);
+			SQLRequest request = select.buildRequest();
+			countOfRows[0] = 0;
+			execute(request.getSql(), request.getParameters(), getAttributesToGet(options), new RowHandler() {
+				@Override
+				public boolean handle(List<Attribute> row) {
+					countOfRows[0]++;
+					for(Attribute attr : row){
+						if(attr.getName().equals(nameOfKey)){
+							lastKey[0] = new SQLParameter(sqlTypeOfKey, attr.getValue().get(0), keyNameOfTable);
+						}
+					}
+					if(!handler.handle(row)){
+						stopped[0] = true;
+						return false;
+					}
+					return true;
+				}
+			});
+			if(countOfRows[0] > 0 && lastKey[0] == null){
+				throw new IllegalArgumentException("Key column " + keyNameOfTable + " is not contained in the select.");
 			}
-			if(queryOrUpdate){
-				rs = pstmt.executeQuery();
-				ret = processingResult(rs);
+		} while(!stopped[0] && countOfRows[0] == pageSize);
+	}
+	
+	/**
+	 * Splits the select to ranges of the key column and reads the ranges in parallel, every range
+	 * on its own connection from the pool. Boundaries of integer keys are computed from MIN and MAX
+	 * of the key, boundaries of other keys by NTILE. The select is read serially when the boundaries can not
+	 * be computed, e.g. when the database does not support window functions. Rows are handed over
+	 * to the handler in the calling thread in no particular order, until all ranges are read or the handler
+	 * returns false.
+	 * 
+	 * @param select select without ORDER BY and paging, it has to contain the key column
+	 * @param nameOfTable table of the select, SQL type of the key is taken from its metadata
+	 * @param countOfPartitions count of ranges read in parallel, it is limited by count of connections currently available
+	 * in the pool, the select is read serially when less than two connections are available
+	 * @param options large object columns are read only when they are contained in attributes to get,
+	 * null means that all columns are read
+	 */
+	public void executePartitionedQueryOnTable(SelectSQLBuilder select, String nameOfTable, String keyNameOfTable, int countOfPartitions,
+			OperationOptions options, RowHandler handler){
+		if(handler == null){
+			throw new IllegalArgumentException("Row handler can not be null.");
+		}
+		if(countOfPartitions < 1){
+			throw new IllegalArgumentException("Count of partitions has to be greater than zero.");
+		}
+		Collection<String> attributesToGet = getAttributesToGet(options);
+		SQLRequest base = select.buildRequest();
+		// connections held by other connector instances sharing the pool are not available for the partitions
+		int partitions = connectionPool == null ? 1 : Math.min(countOfPartitions, connectionPool.getAvailableCount());
+		if(partitions < 2){
+			execute(base.getSql(), base.getParameters(), attributesToGet, handler);
+			return;
+		}
+		
+		Integer typeOfKey = getSqlTypes(nameOfTable, keyNameOfTable).get(keyNameOfTable.toLowerCase());
+		int sqlTypeOfKey = typeOfKey == null ? Types.NULL : typeOfKey;
+		String key = getDialect().quoteIdentifier(keyNameOfTable);
+		List<Object> boundaries;
+		try {
+			if(sqlTypeOfKey == Types.INTEGER || sqlTypeOfKey == Types.BIGINT || sqlTypeOfKey == Types.SMALLINT || sqlTypeOfKey == Types.TINYINT){
+				boundaries = getBoundariesFromMinMax(base, key, partitions);
 			} else {
-				pstmt.executeUpdate();
+				boundaries = getBoundariesFromNtile(base, key, partitions);
+			}
+		} catch (ConnectorException ex) {
+			LOGGER.warn("Boundaries of partitions could not be computed, select is read serially: {0}", ex.getMessage());
+			execute(base.getSql(), base.getParameters(), attributesToGet, handler);
+			return;
+		}
+		if(boundaries == null){
+			return;
+		}
+		
+		List<SQLRequest> requests = new ArrayList<SQLRequest>();
+		for(int i = 0; i <= boundaries.size(); i++){
+			StringBuilder sb = new StringBuilder();
+			sb.append("SELECT * FROM ( ").append(base.getSql()).append(" ) q WHERE ");
+			List<SQLParameter> parameters = new ArrayList<SQLParameter>(base.getParameters());
+			if(i > 0){
+				sb.append(key).append(" > ?");
+				parameters.add(new SQLParameter(sqlTypeOfKey, boundaries.get(i - 1), keyNameOfTable));
+			}
+			if(i < boundaries.size()){
+				if(i > 0){
+					sb.append(" AND ");
+				}
+				sb.append(key).append(" <= ?");
+				parameters.add(new SQLParameter(sqlTypeOfKey, boundaries.get(i), keyNameOfTable));
+			}
+			requests.add(new SQLRequest(sb.toString(), parameters));
+		}
+		LOGGER.ok("Select is split to {0} partitions by boundaries {1}", requests.size(), boundaries);
+		new PartitionedScan(this, connectionPool, attributesToGet, PartitionedScan.DEFAULT_CAPACITY_OF_QUEUE)
+				.execute(requests, handler);
+	}
+	
+	/**
+	 * @return upper boundaries of all ranges except the last one, or null when the select returns no rows
+	 */
+	private List<Object> getBoundariesFromMinMax(SQLRequest base, String key, int partitions) {
+		String sql = "SELECT MIN(" + key + "), MAX(" + key + ") FROM ( " + base.getSql() + " ) q";
+		List<List<Attribute>> result = executeBoundaryQuery(sql, base.getParameters());
+		if(result.isEmpty() || result.get(0).get(0).getValue().get(0) == null){
+			return null;
+		}
+		BigInteger min = new BigInteger(result.get(0).get(0).getValue().get(0).toString());
+		BigInteger max = new BigInteger(result.get(0).get(1).getValue().get(0).toString());
+		BigInteger width = max.subtract(min);
+		List<Object> boundaries = new ArrayList<Object>();
+		for(int i = 1; i < partitions; i++){
+			long boundary = min.add(width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions))).longValue();
+			if(boundaries.isEmpty() || (Long)boundaries.get(boundaries.size() - 1) < boundary){
+				boundaries.add(boundary);
+			}
+		}
+		if(!boundaries.isEmpty() && max.equals(BigInteger.valueOf((Long)boundaries.get(boundaries.size() - 1)))){
+			boundaries.remove(boundaries.size() - 1);
+		}
+		return boundaries;
+	}
+	
+	/**
+	 * @return upper boundaries of all ranges except the last one, or null when the select returns no rows
+	 */
+	private List<Object> getBoundariesFromNtile(SQLRequest base, String key, int partitions) {
+		String sql = "SELECT MAX(" + key + ") FROM ( SELECT " + key + ", NTILE(" + partitions + ") OVER (ORDER BY " + key
+				+ ") ntile_of_row FROM ( " + base.getSql() + " ) q ) t GROUP BY ntile_of_row ORDER BY ntile_of_row";
+		List<List<Attribute>> result = executeBoundaryQuery(sql, base.getParameters());
+		if(result.isEmpty()){
+			return null;
+		}
+		List<Object> boundaries = new ArrayList<Object>();
+		for(int i = 0; i < result.size() - 1; i++){
+			boundaries.add(result.get(i).get(0).getValue().get(0));
+		}
+		return boundaries;
+	}
+	
+	/**
+	 * Every SQL exception of the query is rethrown, so a failed query is not mistaken for a select without rows.
+	 */
+	private List<List<Attribute>> executeBoundaryQuery(String sql, List<SQLParameter> sqlValuesOfParameters) {
+		final List<List<Attribute>> ret = new ArrayList<List<Attribute>>();
+		final RowHandler handler = new RowHandler() {
+			@Override
+			public boolean handle(List<Attribute> row) {
+				ret.add(row);
+				return true;
+			}
+		};
+		executeOnConnection(sql, sqlValuesOfParameters, new ResultSetProcessor() {
+			@Override
+			public void process(ResultSet rs) throws SQLException {
+				processingResult(rs, null, handler);
+			}
+		}, true);
+		return ret;
+	}
+	
+	/**
+	 * Executes the insert and returns the value of the key generated by the database
+	 * (identity column, sequence default or trigger), or null when the database did not return any.
+	 */
+	public Object executeInsertOnTable(SQLRequest request, String keyNameOfTable){
+		LOGGER.info("Execute qsl request: {0}", request.getSql());
+		PreparedStatement pstmt = null;
+		ResultSet keys = null;
+		boolean failed = false;
+		boolean borrowed = beginOperation();
+		try {
+			pstmt = getDialect().prepareInsertReturningKey(getConnection(), request.getSql(), keyNameOfTable);
+			if(request.getParameters() != null && request.getCountOfPlaceholders() > 0){
+				JdbcUtil.setSqlParameters(pstmt, request);
+			}
+			pstmt.executeUpdate();
+			keys = pstmt.getGeneratedKeys();
+			if(keys != null && keys.next()){
+				return keys.getObject(1);
 			}
-			
 		} catch (SQLException ex) {
 			LOGGER.error(ex.getMessage());
+			failed = true;
 			if(rethrowSQLException(ex.getErrorCode())){
 				throw new ConnectorException(ex.getMessage(), ex);
 			}
-		} finally{
+		} finally {
 			try {
-				if(rs!=null){
-		            rs.close();
+				if(keys != null){
+					keys.close();
 				}
-				if(pstmt!=null){
-		            pstmt.close();
+				if(pstmt != null){
+					pstmt.close();
 				}
 			} catch (SQLException ex) {
 				LOGGER.error(ex.getMessage());
-				if(rethrowSQLException(ex.getErrorCode())){
-					throw new ConnectorException(ex.getMessage(), ex);
+			} finally {
+				if(failed){
+					checkConnectionAfterFailure();
 				}
+				endOperation(borrowed);
 			}
 		}
-		return ret;
+		return null;
 	}
 	
-	private List<List<Attribute>> processingResult(ResultSet rs) {
-		
-		List<List<Attribute>> ret = new ArrayList<List<Attribute>>();
+	public void executeUpdateOnTable(String sql, List<SQLParameter> sqlValuesOfParameters){
+		execute(sql, sqlValuesOfParameters, null);
+	}
+	
+	public void executeUpdateOnTable(String sql){
+		execute(sql, null, null);
+	}
+	
+	public List<BatchResult> executeBatchOnTable(List<SQLRequest> requests){
+		return executeBatchOnTable(requests, false);
+	}
+	
+	/**
+	 * Executes the requests by JDBC batches. Consecutive requests with identical SQL text are sent together
+	 * and the batch is flushed every 'Batch size' requests, the order of the requests is kept.
+	 * When inTransaction is true, all requests are executed in one transaction, which is rolled back
+	 * after the first failure. Otherwise every request succeeds or fails independently. When the connection
+	 * is already in a transaction of the caller (auto-commit is off), the batch is enclosed by a savepoint,
+	 * so only the batch is rolled back and nothing is committed.
+	 * 
+	 * @return results in the same order as the requests
+	 */
+	public List<BatchResult> executeBatchOnTable(List<SQLRequest> requests, boolean inTransaction){
+		if(requests == null){
+			throw new IllegalArgumentException("SQL requests can not be null.");
+		}
+		List<BatchResult> results = new ArrayList<BatchResult>(requests.size());
+		for(SQLRequest request : requests){
+			results.add(new BatchResult(request));
+		}
+		if(requests.isEmpty()){
+			return results;
+		}
+		LOGGER.info("Execute batch of {0} sql requests, in transaction: {1}", requests.size(), inTransaction);
 		
+		boolean borrowed = beginOperation();
+		Connection conn = getConnection();
+		boolean autoCommit = true;
+		Savepoint savepoint = null;
+		boolean transactionStarted = false;
+		boolean failed = false;
 		try {
-			
-			while(rs.next()){
-				int i = 1;
-				List<Attribute> oneRow = new ArrayList<Attribute>();
-				while(i <= rs.getMetaData().getColumnCount()){
-					AttributeBuilder attrB = new AttributeBuilder();
-					ResultSetMetaData metaData = rs.getMetaData();
-					attrB.setName(metaData.getColumnName(i).toLowerCase());
-					Object value = null;
-					int type = metaData.getColumnType(i);
-					if(!getConfiguration().isAllNative()){
-						if(Types.TIMESTAMP == type || Types.TIME == type || Types.DATE == type){
-							value = JdbcUtil.getValueOfColumn(type, i, rs, getConfiguration().getTimestampPresentation());
-						} else if(JdbcUtil.getTypeOfAttribute(type, getConfiguration().getTimestampPresentation()).isAssignableFrom(String.class)){
-							value = JdbcUtil.getValueOfColumn(Types.VARCHAR, i, rs, getConfiguration().getTimestampPresentation());
-						} else {
-							value = JdbcUtil.getValueOfColumn(type, i, rs, getConfiguration().getTimestampPresentation());
+			autoCommit = conn.getAutoCommit();
+			if(inTransaction){
+				if(autoCommit){
+					conn.setAutoCommit(false);
+				} else {
+					// earlier work of the caller's transaction must be neither committed nor rolled back
+					savepoint = conn.setSavepoint();
+				}
+			}
+			transactionStarted = inTransaction;
+			int start = 0;
+			while(start < requests.size()){
+				String sql = requests.get(start).getSql();
+				int end = start + 1;
+				while(end < requests.size() && sql.equals(requests.get(end).getSql())){
+					end++;
+				}
+				failed |= executeBatchOfSameSql(sql, results.subList(start, end), inTransaction);
+				if(failed && inTransaction){
+					break;
+				}
+				start = end;
+			}
+			if(inTransaction){
+				if(failed){
+					rollback(conn, savepoint);
+					markRolledBack(results);
+				} else if(savepoint == null){
+					conn.commit();
+				} else {
+					releaseSavepoint(conn, savepoint);
+				}
+			}
+		} catch (SQLException ex) {
+			LOGGER.error(ex.getMessage());
+			for(BatchResult result : results){
+				if(!result.isExecuted() && result.getFailure() == null){
+					result.setFailure(ex, false);
+				}
+			}
+			if(transactionStarted){
+				// requests which were already executed must not be committed by restoring auto-commit
+				try {
+					rollback(conn, savepoint);
+				} catch (SQLException e) {
+					LOGGER.error("Rollback of the batch failed: {0}", e.getMessage());
+				}
+				markRolledBack(results);
+			}
+			checkConnectionAfterFailure();
+			if(rethrowSQLException(ex.getErrorCode())){
+				throw new ConnectorException(ex.getMessage(), ex);
+			}
+		} finally {
+			try {
+				if(inTransaction && autoCommit && connection == conn){
+					conn.setAutoCommit(true);
+				}
+			} catch (SQLException ex) {
+				LOGGER.error(ex.getMessage());
+			} finally {
+				endOperation(borrowed);
+			}
+		}
+		return results;
+	}
+	
+	private static void rollback(Connection conn, Savepoint savepoint) throws SQLException {
+		if(savepoint == null){
+			conn.rollback();
+		} else {
+			conn.rollback(savepoint);
+		}
+	}
+	
+	private static void releaseSavepoint(Connection conn, Savepoint savepoint) {
+		try {
+			conn.releaseSavepoint(savepoint);
+		} catch (SQLException ex) {
+			// some drivers do not support the release, the savepoint is released by the end of the transaction
+			LOGGER.ok("Savepoint of the batch was not released: {0}", ex.getMessage());
+		}
+	}
+	
+	/**
+	 * @return true when some of the requests failed
+	 */
+	private boolean executeBatchOfSameSql(String sql, List<BatchResult> results, boolean stopOnFailure) throws SQLException {
+		int batchSize = getConfiguration().getBatchSize();
+		PreparedStatementCache statementCache = getStatementCache();
+		PreparedStatement pstmt = statementCache != null ? statementCache.acquire(sql) : getConnection().prepareStatement(sql);
+		boolean failed = false;
+		boolean broken = false;
+		int countOfPlaceholders = JdbcUtil.countChar(sql, '?');
+		try {
+			int start = 0;
+			while(start < results.size()){
+				List<BatchResult> chunk = new ArrayList<BatchResult>();
+				int next = start;
+				while(next < results.size() && chunk.size() < batchSize){
+					BatchResult result = results.get(next++);
+					List<SQLParameter> parameters = result.getRequest().getParameters();
+					try {
+						if(countOfPlaceholders > 0 && parameters != null){
+							JdbcUtil.setSqlParameters(pstmt, countOfPlaceholders, result.getRequest().getParameterBinders(), parameters);
+						}
+					} catch (IllegalArgumentException e) {
+						result.setFailure(e, false);
+						failed = true;
+						continue;
+					}
+					pstmt.addBatch();
+					chunk.add(result);
+				}
+				if(failed && stopOnFailure){
+					pstmt.clearBatch();
+					return true;
+				}
+				start = next;
+				if(chunk.isEmpty()){
+					continue;
+				}
+				try {
+					int[] counts = pstmt.executeBatch();
+					for(int i = 0; i < chunk.size(); i++){
+						chunk.get(i).setSuccess(i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO);
+					}
+				} catch (BatchUpdateException ex) {
+					LOGGER.error(ex.getMessage());
+					failed = true;
+					pstmt.clearBatch();
+					int[] counts = ex.getUpdateCounts() == null ? new int[0] : ex.getUpdateCounts();
+					for(int i = 0; i < chunk.size(); i++){
+						if(i < counts.length && counts[i] != Statement.EXECUTE_FAILED){
+							chunk.get(i).setSuccess(counts[i]);
+						} else if(i <= counts.length){
+							chunk.get(i).setFailure(ex, true);
 						}
-					} else { 
-						value = JdbcUtil.getValueOfColumn(type, i, rs, getConfiguration().getTimestampPresentation());
 					}
-					attrB.addValue(value);
-					oneRow.add(attrB.build());
-					i++;
+					if(stopOnFailure){
+						return true;
+					}
+					if(counts.length < chunk.size() - 1){
+						// driver stopped on the first failure, the rest of the chunk is sent again
+						start = results.indexOf(chunk.get(counts.length + 1));
+					}
 				}
-				ret.add(oneRow);
 			}
+		} catch (SQLException ex) {
+			broken = true;
+			throw ex;
+		} finally {
+			if(statementCache != null && !broken){
+				statementCache.release(sql, pstmt);
+			} else {
+				pstmt.close();
+			}
+		}
+		return failed;
+	}
+	
+	private void markRolledBack(List<BatchResult> results) {
+		SQLException notExecuted = new SQLException("Request was not executed because other request of the transaction failed.");
+		for(BatchResult result : results){
+			if(result.isSuccess()){
+				result.setRolledBack();
+			} else if(result.getFailure() == null){
+				result.setFailure(notExecuted, false);
+			}
+		}
+	}
+	
+	/**
+	 * Executes query when handler is provided, otherwise executes update.
+	 */
+	private void execute(String sql, List<SQLParameter> sqlValuesOfParameters, RowHandler handler){
+		execute(sql, sqlValuesOfParameters, null, handler);
+	}
+	
+	/**
+	 * @param attributesToGet large object columns not contained are not read, null means all columns
+	 */
+	private void execute(String sql, List<SQLParameter> sqlValuesOfParameters, final Collection<String> attributesToGet, final RowHandler handler){
+		ResultSetProcessor processor = null;
+		if(handler != null){
+			processor = new ResultSetProcessor() {
+				@Override
+				public void process(ResultSet rs) throws SQLException {
+					processingResult(rs, attributesToGet, handler);
+				}
+			};
+		}
+		executeOnConnection(sql, sqlValuesOfParameters, processor);
+	}
+	
+	/**
+	 * Executes the statement on the connection of this connector, query when processor is provided,
+	 * otherwise update. The connection is borrowed for the statement when the connector does not hold any.
+	 */
+	void executeOnConnection(String sql, List<SQLParameter> sqlValuesOfParameters, ResultSetProcessor processor){
+		executeOnConnection(sql, sqlValuesOfParameters, processor, false);
+	}
+	
+	/**
+	 * @param rethrow rethrow every SQL exception, regardless of {@link #rethrowSQLException(int)}
+	 */
+	void executeOnConnection(String sql, List<SQLParameter> sqlValuesOfParameters, ResultSetProcessor processor, boolean rethrow){
+		boolean failed = false;
+		boolean borrowed = beginOperation();
+		try {
+			executeStatement(getConnection(), getStatementCache(), sql, sqlValuesOfParameters, processor);
 		} catch (SQLException ex) {
 			LOGGER.error(ex.getMessage());
-			if(rethrowSQLException(ex.getErrorCode())){
+			failed = true;
+			if(rethrow || rethrowSQLException(ex.getErrorCode())){
 				throw new ConnectorException(ex.getMessage(), ex);
 			}
+		} finally {
+			if(failed){
+				checkConnectionAfterFailure();
+			}
+			endOperation(borrowed);
+		}
+	}
+	
+	/**
+	 * Prepares the statement on the connection, binds the parameters and executes it. Result set of the query
+	 * is handed over to the processor, update is executed when there is no processor. The statement is returned
+	 * to the statement cache, it is closed when there is no cache or when the execution failed.
+	 * 
+	 * @param statementCache cache of statements of the connection, null when statements are not cached
+	 */
+	void executeStatement(Connection connection, PreparedStatementCache statementCache, String sql,
+			List<SQLParameter> sqlValuesOfParameters, ResultSetProcessor processor) throws SQLException {
+		LOGGER.info("Execute qsl request: {0}", sql);
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		boolean failed = true;
+		try {
+			if(statementCache != null){
+				pstmt = statementCache.acquire(sql);
+			} else {
+				pstmt = connection.prepareStatement(sql);
+			}
+			if(sqlValuesOfParameters != null){
+				if(statementCache != null){
+					statementCache.bind(pstmt, sql, sqlValuesOfParameters);
+				} else if(sql.contains("?")){
+					JdbcUtil.setSqlParameters(pstmt, sql, sqlValuesOfParameters);
+				}
+			}
+			if(processor != null){
+				if(getConfiguration().getFetchSize() > 0){
+					pstmt.setFetchSize(getConfiguration().getFetchSize());
+				}
+				rs = pstmt.executeQuery();
+				processor.process(rs);
+			} else {
+				pstmt.executeUpdate();
+			}
+			failed = false;
+		} finally {
+			try {
+				if(rs!=null){
+					rs.close();
+				}
+				if(pstmt!=null){
+					if(statementCache != null && !failed){
+						statementCache.release(sql, pstmt);
+					} else {
+						pstmt.close();
+					}
+				}
+			} catch (SQLException ex) {
+				LOGGER.error(ex.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Reader of the result set of the query executed by {@link #executeStatement}.
+	 */
+	interface ResultSetProcessor {
+		
+		void process(ResultSet rs) throws SQLException;
+	}
+	
+	private void processingResult(ResultSet rs, Collection<String> attributesToGet, RowHandler handler) throws SQLException {
+		
+		RowDecoder decoder = new RowDecoder(rs.getMetaData(), getConfiguration(), attributesToGet);
+		while(rs.next()){
+			if(!handler.handle(decoder.decode(rs))){
+				LOGGER.ok("Processing of result was stopped by handler.");
+				break;
+			}
 		}
-		return ret;
 	}
 
 	public Set<AttributeInfo> buildAttributeInfosFromTable(String nameOfTable, String keyNameOfTable, List<String> excludedNames) {
-		this.namesOfRequiredColumns.clear();
-		this.sqlTypes.clear();
 		if (nameOfTable == null) {
 			LOGGER.error("Attribute nameOfTable not provided.");
 			throw new InvalidAttributeValueException("Attribute nameOfTable not provided.");
@@ -270,52 +949,311 @@ public class AbstractJdbcConnector<C extends AbstractJdbcConfiguration> implemen
 			throw new InvalidAttributeValueException("Attribute keyNameOfTable not provided.");
 		}
 		
+		TableMetadata table = getTableMetadata(nameOfTable, keyNameOfTable);
+		if(table == null){
+			return null;
+		}
+		boolean deprecatedIsRequired = isOverridden("isRequired", ResultSetMetaData.class, int.class);
+		boolean deprecatedIsMultivalue = isOverridden("isMultivalue", ResultSetMetaData.class, int.class);
+		Map<String, boolean[]> deprecatedFlags = null;
+		if(deprecatedIsRequired || deprecatedIsMultivalue){
+			deprecatedFlags = getFlagsFromDeprecatedHooks(nameOfTable, keyNameOfTable);
+		}
+		List<String> requiredColumns = new ArrayList<String>();
+		Set<AttributeInfo> attrsInfo = new HashSet<AttributeInfo>();
+		for (ColumnMetadata column : table.getColumns()) {
+			final String nameOfColumn = column.getName();
+			if (excludedNames == null || !excludedNames.contains(nameOfColumn)) {
+				final AttributeInfoBuilder attrInfoBuilder = new AttributeInfoBuilder();
+				Class<?> type = JdbcUtil.getTypeOfAttribute(column.getSqlType(), getConfiguration().getTimestampPresentation());
+				attrInfoBuilder.setName(nameOfColumn.toLowerCase());
+				attrInfoBuilder.setType(type);
+				boolean[] flags = deprecatedFlags == null ? null : deprecatedFlags.get(nameOfColumn.toLowerCase());
+				boolean required = flags != null && deprecatedIsRequired ? flags[0] : isRequired(column);
+				if(required && type.equals(String.class)){
+					requiredColumns.add(nameOfColumn.toLowerCase());
+				}
+				attrInfoBuilder.setRequired(required);
+				attrInfoBuilder.setMultiValued(flags != null && deprecatedIsMultivalue ? flags[1] : isMultivalue(column));
+				if(JdbcUtil.isLargeObject(column.getSqlType())){
+					attrInfoBuilder.setReturnedByDefault(false);
+				}
+				attrsInfo.add(attrInfoBuilder.build());
+			}
+		}
+		this.sqlTypes = table.getSqlTypes();
+		this.namesOfRequiredColumns = Collections.unmodifiableList(requiredColumns);
+		return attrsInfo;
+	}
+	
+	/**
+	 * Returns metadata of the table from the cache shared by connector instances with the same configuration,
+	 * the metadata are read from {@link DatabaseMetaData#getColumns(String, String, String, String)} when they
+	 * are not cached or when they are older than 'Schema cache time to live'.
+	 * 
+	 * @param keyNameOfTable key of the table, used only when the driver does not return columns of the table
+	 */
+	public TableMetadata getTableMetadata(final String nameOfTable, final String keyNameOfTable) {
+		try {
+			TableMetadataCache.Loader loader = new TableMetadataCache.Loader() {
+				@Override
+				public TableMetadata load(String name) throws SQLException {
+					boolean borrowed = beginOperation();
+					try {
+						return loadTableMetadata(name, keyNameOfTable);
+					} catch (SQLException ex) {
+						checkConnectionAfterFailure();
+						throw ex;
+					} finally {
+						endOperation(borrowed);
+					}
+				}
+			};
+			if(connectionPool == null){
+				return loader.load(nameOfTable);
+			}
+			return connectionPool.getTableMetadataCache().get(nameOfTable, loader);
+		} catch (SQLException ex) {
+			LOGGER.error(ex.getMessage());
+			if(rethrowSQLException(ex.getErrorCode())){
+				throw new ConnectorException(ex.getMessage(), ex);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return SQL types of the columns of the table by lower-cased name of the column
+	 */
+	public Map<String, Integer> getSqlTypes(String nameOfTable, String keyNameOfTable) {
+		TableMetadata table = getTableMetadata(nameOfTable, keyNameOfTable);
+		if(table == null){
+			return Collections.emptyMap();
+		}
+		return table.getSqlTypes();
+	}
+	
+	/**
+	 * Returns columns of the table which have to be selected for the attributes to get of the options.
+	 * Without attributes to get all columns returned by default are selected, i.e. all except large objects.
+	 * Requested names which are not columns of the table (e.g. __PASSWORD__) are ignored.
+	 */
+	public List<String> getNamesOfColumnsToGet(String nameOfTable, String keyNameOfTable, OperationOptions options) {
+		TableMetadata table = getTableMetadata(nameOfTable, keyNameOfTable);
+		if(table == null){
+			return null;
+		}
+		String[] attributesToGet = options == null ? null : options.getAttributesToGet();
+		boolean returnDefault = attributesToGet == null
+				|| (options.getReturnDefaultAttributes() != null && options.getReturnDefaultAttributes());
+		Set<String> requested = new HashSet<String>();
+		if(attributesToGet != null){
+			for(String name : attributesToGet){
+				requested.add(name.toLowerCase());
+			}
+		}
+		List<String> columns = new ArrayList<String>();
+		for(ColumnMetadata column : table.getColumns()){
+			if((returnDefault && !JdbcUtil.isLargeObject(column.getSqlType()))
+					|| requested.contains(column.getName().toLowerCase())){
+				columns.add(column.getName());
+			}
+		}
+		return columns;
+	}
+	
+	/**
+	 * Replaces 'SELECT *' of the select by the columns for the attributes to get of the options,
+	 * key and name columns are always selected.
+	 * 
+	 * @param nameOfNameColumn column of the name of the object, can be null
+	 */
+	public void setNamesOfColumnsToGet(SelectSQLBuilder select, String nameOfTable, String keyNameOfTable, String nameOfNameColumn, OperationOptions options) {
+		select.setNamesOfColumnsToGet(getNamesOfColumnsToGet(nameOfTable, keyNameOfTable, options), keyNameOfTable, nameOfNameColumn);
+	}
+	
+	/**
+	 * Translates the filter to condition of the WHERE clause for the table.
+	 * 
+	 * @param nameOfNameColumn column of the name of the object, can be null
+	 * @return condition with bound parameters, or null when there is no filter or when it can not be translated
+	 */
+	public SQLRequest translateFilter(String nameOfTable, String keyNameOfTable, String nameOfNameColumn, Filter filter) {
+		if(filter == null){
+			return null;
+		}
+		TableMetadata table = getTableMetadata(nameOfTable, keyNameOfTable);
+		if(table == null){
+			return null;
+		}
+		return new SQLFilterTranslator(getDialect(), table, keyNameOfTable, nameOfNameColumn).translateToWhereClause(filter);
+	}
+	
+	/**
+	 * Removes cached metadata of the table, e.g. after the table was altered.
+	 */
+	public void invalidateTableMetadata(String nameOfTable) {
+		if(connectionPool != null){
+			connectionPool.getTableMetadataCache().invalidate(nameOfTable);
+		}
+	}
+	
+	protected TableMetadata loadTableMetadata(String nameOfTable, String keyNameOfTable) throws SQLException {
+		Connection conn = getConnection();
+		DatabaseMetaData metaData = conn.getMetaData();
+		String schema = null;
+		String table = nameOfTable;
+		int dot = nameOfTable.lastIndexOf('.');
+		if(dot != -1){
+			schema = nameOfTable.substring(0, dot);
+			table = nameOfTable.substring(dot + 1);
+		} else {
+			try {
+				schema = conn.getSchema();
+			} catch (SQLException | AbstractMethodError e) {
+				LOGGER.ok("Current schema is not provided by the driver: {0}", e.getMessage());
+			}
+		}
+		if(metaData.storesUpperCaseIdentifiers()){
+			table = table.toUpperCase();
+			schema = schema == null ? null : schema.toUpperCase();
+		} else if(metaData.storesLowerCaseIdentifiers()){
+			table = table.toLowerCase();
+			schema = schema == null ? null : schema.toLowerCase();
+		}
+		
+		List<ColumnMetadata> columns = new ArrayList<ColumnMetadata>();
+		ResultSet rs = metaData.getColumns(conn.getCatalog(), escapeSearchPattern(schema, metaData), escapeSearchPattern(table, metaData), "%");
+		try {
+			String schemaOfTable = null;
+			while(rs.next()){
+				String schemaOfColumn = rs.getString("TABLE_SCHEM");
+				if(schemaOfTable == null){
+					schemaOfTable = schemaOfColumn;
+				} else if(!schemaOfTable.equals(schemaOfColumn)){
+					continue;
+				}
+				String isAutoIncrement = rs.getString("IS_AUTOINCREMENT");
+				columns.add(new ColumnMetadata(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+						rs.getInt("COLUMN_SIZE"), rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls, "YES".equals(isAutoIncrement)));
+			}
+		} finally {
+			rs.close();
+		}
+		if(columns.isEmpty()){
+			LOGGER.info("Driver does not provide columns of table {0}, they are read from metadata of select.", nameOfTable);
+			return loadTableMetadataFromSelect(nameOfTable, keyNameOfTable);
+		}
+		return new TableMetadata(nameOfTable, columns);
+	}
+	
+	private String escapeSearchPattern(String name, DatabaseMetaData metaData) throws SQLException {
+		if(name == null){
+			return null;
+		}
+		String escape = metaData.getSearchStringEscape();
+		if(StringUtil.isEmpty(escape)){
+			return name;
+		}
+		return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+	}
+	
+	private TableMetadata loadTableMetadataFromSelect(String nameOfTable, String keyNameOfTable) throws SQLException {
 		StringBuilder sb = new StringBuilder();
 		sb.append("SELECT * FROM ").append(nameOfTable).append(" WHERE ").append(keyNameOfTable).append(" IS NULL");
-		String sql = sb.toString();
 		
-		ResultSet result = null;
-		Statement stmt = null;
+		Statement stmt = getConnection().createStatement();
 		try {
-			stmt = getConnection().createStatement();
-
-			result = stmt.executeQuery(sql);
-			Set<AttributeInfo> attrsInfo = new HashSet<AttributeInfo>();
-			ResultSetMetaData metaData = result.getMetaData();
-			int countOfAttributes = metaData.getColumnCount();
-			for (int i = 1; i <= countOfAttributes; i++) {
-				final String nameOfColumn = metaData.getColumnName(i);
-				final AttributeInfoBuilder attrInfoBuilder = new AttributeInfoBuilder();
-				final Integer numberOfType = metaData.getColumnType(i);
-				this.sqlTypes.put(nameOfColumn.toLowerCase(), numberOfType);
-				if (excludedNames == null || !excludedNames.contains(nameOfColumn)) {
-					
-					Class<?> type = JdbcUtil.getTypeOfAttribute(numberOfType, getConfiguration().getTimestampPresentation());
-					attrInfoBuilder.setName(nameOfColumn.toLowerCase());
-					attrInfoBuilder.setType(type);
-					boolean required = isRequired(metaData, i);
-					if(required && type.equals(String.class)){
-						this.namesOfRequiredColumns.add(nameOfColumn.toLowerCase());
+			ResultSet result = stmt.executeQuery(sb.toString());
+			try {
+				List<ColumnMetadata> columns = new ArrayList<ColumnMetadata>();
+				ResultSetMetaData metaData = result.getMetaData();
+				for (int i = 1; i <= metaData.getColumnCount(); i++) {
+					columns.add(new ColumnMetadata(metaData.getColumnName(i), metaData.getColumnType(i), metaData.getColumnTypeName(i),
+							metaData.getPrecision(i), metaData.isNullable(i) != ResultSetMetaData.columnNoNulls, metaData.isAutoIncrement(i)));
+				}
+				return new TableMetadata(nameOfTable, columns);
+			} finally {
+				result.close();
+			}
+		} finally {
+			stmt.close();
+		}
+	}
+	
+	protected boolean isMultivalue(ColumnMetadata column) { 
+		return false; 
+	}
+	
+	protected boolean isRequired(ColumnMetadata column) {
+		return !column.isNullable();
+	}
+	
+	/**
+	 * Subclasses which still override {@link #isRequired(ResultSetMetaData, int)} or {@link #isMultivalue(ResultSetMetaData, int)}
+	 * get the metadata of the select of the table like before the metadata were cached.
+	 * 
+	 * @return [required, multivalue] by lower-cased name of the column, or null when the metadata can not be read
+	 */
+	private Map<String, boolean[]> getFlagsFromDeprecatedHooks(String nameOfTable, String keyNameOfTable) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("SELECT * FROM ").append(nameOfTable).append(" WHERE ").append(keyNameOfTable).append(" IS NULL");
+		boolean borrowed = beginOperation();
+		try {
+			Statement stmt = getConnection().createStatement();
+			try {
+				ResultSet result = stmt.executeQuery(sb.toString());
+				try {
+					Map<String, boolean[]> flags = new HashMap<String, boolean[]>();
+					ResultSetMetaData metaData = result.getMetaData();
+					for (int i = 1; i <= metaData.getColumnCount(); i++) {
+						flags.put(metaData.getColumnName(i).toLowerCase(), new boolean[]{isRequired(metaData, i), isMultivalue(metaData, i)});
 					}
-					attrInfoBuilder.setRequired(required);
-					attrInfoBuilder.setMultiValued(isMultivalue(metaData, i));
-					attrsInfo.add(attrInfoBuilder.build());
+					return flags;
+				} finally {
+					result.close();
 				}
+			} finally {
+				stmt.close();
 			}
-			return attrsInfo;
 		} catch (SQLException ex) {
 			LOGGER.error(ex.getMessage());
+			checkConnectionAfterFailure();
 			if(rethrowSQLException(ex.getErrorCode())){
 				throw new ConnectorException(ex.getMessage(), ex);
 			}
+		} finally {
+			endOperation(borrowed);
 		}
 		return null;
 	}
 	
+	private boolean isOverridden(String nameOfMethod, Class<?>... parameterTypes) {
+		for(Class<?> type = getClass(); type != null && type != AbstractJdbcConnector.class; type = type.getSuperclass()){
+			try {
+				type.getDeclaredMethod(nameOfMethod, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not declared by this class
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @deprecated schema is built from cached {@link TableMetadata}, override {@link #isMultivalue(ColumnMetadata)};
+	 * overrides of this method are still called, but they cost additional query for every build of the schema
+	 */
+	@Deprecated
 	protected boolean isMultivalue(ResultSetMetaData metaData, int i) { 
 		return false; 
 	}
 	
+	/**
+	 * @deprecated schema is built from cached {@link TableMetadata}, override {@link #isRequired(ColumnMetadata)};
+	 * overrides of this method are still called, but they cost additional query for every build of the schema
+	 */
+	@Deprecated
 	protected boolean isRequired(ResultSetMetaData metaData, int i){
 		try {
 			return metaData.isNullable(i)==ResultSetMetaData.columnNoNulls;
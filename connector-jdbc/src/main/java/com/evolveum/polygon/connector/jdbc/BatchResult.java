@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+/**
+ * Result of one {@link SQLRequest} executed by
+ * {@link AbstractJdbcConnector#executeBatchOnTable(java.util.List, boolean)}.
+ *
+ */
+public class BatchResult {
+
+	private SQLRequest request;
+	private int updateCount = 0;
+	private Exception failure;
+	private boolean executed = false;
+	private boolean rolledBack = false;
+	
+	public BatchResult(SQLRequest request) {
+		this.request = request;
+	}
+	
+	/**
+	 * @return the request
+	 */
+	public SQLRequest getRequest() {
+		return request;
+	}
+	
+	/**
+	 * @return count of affected rows as reported by the JDBC driver, 
+	 * {@link java.sql.Statement#SUCCESS_NO_INFO} when the driver does not know it
+	 */
+	public int getUpdateCount() {
+		return updateCount;
+	}
+	
+	/**
+	 * @return exception which caused failure of the request, or null
+	 */
+	public Exception getFailure() {
+		return failure;
+	}
+	
+	/**
+	 * @return true when the request was sent to the database
+	 */
+	public boolean isExecuted() {
+		return executed;
+	}
+	
+	/**
+	 * @return true when the request was executed, but the transaction was rolled back because of other failed request
+	 */
+	public boolean isRolledBack() {
+		return rolledBack;
+	}
+	
+	public boolean isSuccess() {
+		return executed && failure == null && !rolledBack;
+	}
+	
+	void setSuccess(int updateCount) {
+		this.executed = true;
+		this.updateCount = updateCount;
+	}
+	
+	void setFailure(Exception failure, boolean executed) {
+		this.executed = executed;
+		this.failure = failure;
+	}
+	
+	void setRolledBack() {
+		this.rolledBack = true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(request.getSql()).append(" : ");
+		if(isSuccess()){
+			sb.append("updated ").append(updateCount);
+		} else if(rolledBack){
+			sb.append("rolled back");
+		} else {
+			sb.append("failed ").append(failure);
+		}
+		return sb.toString();
+	}
+}
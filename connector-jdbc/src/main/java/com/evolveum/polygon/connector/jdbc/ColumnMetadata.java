@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+/**
+ * Immutable description of one column of a table, part of {@link TableMetadata}.
+ *
+ */
+public class ColumnMetadata {
+
+	private final String name;
+	private final int sqlType;
+	private final String typeName;
+	private final int columnSize;
+	private final boolean nullable;
+	private final boolean autoIncrement;
+	
+	public ColumnMetadata(String name, int sqlType, String typeName, int columnSize, boolean nullable, boolean autoIncrement) {
+		this.name = name;
+		this.sqlType = sqlType;
+		this.typeName = typeName;
+		this.columnSize = columnSize;
+		this.nullable = nullable;
+		this.autoIncrement = autoIncrement;
+	}
+	
+	/**
+	 * @return name of the column as returned by the database
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return type from {@link java.sql.Types}
+	 */
+	public int getSqlType() {
+		return sqlType;
+	}
+	
+	/**
+	 * @return database specific name of the type
+	 */
+	public String getTypeName() {
+		return typeName;
+	}
+	
+	public int getColumnSize() {
+		return columnSize;
+	}
+	
+	public boolean isNullable() {
+		return nullable;
+	}
+	
+	public boolean isAutoIncrement() {
+		return autoIncrement;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return name + " " + typeName + "(" + columnSize + ")" + (nullable ? "" : " NOT NULL");
+	}
+}
@@ -15,6 +15,7 @@
  */
 package com.evolveum.polygon.connector.jdbc;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.identityconnectors.framework.common.objects.Uid;
@@ -27,8 +28,22 @@ public class DeleteBuilder {
 
 	private String nameOfTable = "";
 	private String whereClause = "";
+	private SQLParameter uidParameter = null;
+	private final SQLDialect dialect;
 	
+	public DeleteBuilder() {
+		this(SQLDialect.create(SQLDialect.GENERIC, null));
+	}
 	
+	/**
+	 * @param dialect dialect used for quoting of the names of the table and the columns
+	 */
+	public DeleteBuilder(SQLDialect dialect) {
+		if(dialect == null){
+			throw new IllegalArgumentException("SQL dialect can not be null.");
+		}
+		this.dialect = dialect;
+	}
 	
 	public String build(){
 		
@@ -41,20 +56,74 @@ public class DeleteBuilder {
 		}
 		
 		StringBuilder sb = new StringBuilder();
-		sb.append("DELETE ").append(" ").append(this.nameOfTable).append(" ").append(this.whereClause); 
+		sb.append("DELETE FROM ").append(this.dialect.quoteIdentifier(this.nameOfTable)).append(" ").append(this.whereClause); 
 		return sb.toString();
 	}
 	
+	/**
+	 * Builds the delete together with the bound value of uid.
+	 */
+	public SQLRequest buildRequest(){
+		return new SQLRequest(build(), getParameters());
+	}
+	
+	public SQLRequest buildRequest(String nameOfTable, Uid userUid, String nameOfUidParameter, int sqlTypeOfUid){
+		setNameOfTable(nameOfTable);
+		setWhereClause(userUid, nameOfUidParameter, sqlTypeOfUid);
+		return buildRequest();
+	}
+	
+	/**
+	 * Builds the delete with the value of uid written directly to the SQL text.
+	 * 
+	 * @deprecated every uid produces different statement and the value is not escaped,
+	 * use {@link #buildRequest(String, Uid, String, int)} instead
+	 */
+	@Deprecated
 	public String build(String nameOfTable, Uid userUid, String nameOfUidParameter){
 		setNameOfTable(nameOfTable);
 		setWhereClause(userUid, nameOfUidParameter);
 		return build();
 	}
 	
+	/**
+	 * @return parameters which have to be bound to the SQL returned by {@link #build()}
+	 */
+	public List<SQLParameter> getParameters(){
+		List<SQLParameter> parameters = new ArrayList<SQLParameter>();
+		if(this.uidParameter != null){
+			parameters.add(this.uidParameter);
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Sets 'WHERE uid = value' with the value of uid written directly to the SQL text,
+	 * so the SQL returned by {@link #build()} has no parameters.
+	 * 
+	 * @deprecated every uid produces different statement and the value is not escaped,
+	 * use {@link #setWhereClause(Uid, String, int)} instead
+	 */
+	@Deprecated
 	public void setWhereClause(Uid userUid, String nameOfUidParameter) {
 		StringBuilder sb = new StringBuilder();
-		sb.append(" WHERE ").append(nameOfUidParameter).append(" = ").append(userUid.getUidValue());
+		sb.append(" WHERE ").append(this.dialect.quoteIdentifier(nameOfUidParameter)).append(" = ").append(userUid.getUidValue());
+		this.whereClause = sb.toString();
+		this.uidParameter = null;
+	}
+	
+	/**
+	 * Sets 'WHERE uid = ?', the value of uid is bound as parameter of the SQL type of the uid column,
+	 * so the SQL text is the same for all objects.
+	 */
+	public void setWhereClause(Uid userUid, String nameOfUidParameter, int sqlTypeOfUid) {
+		if(userUid == null){
+			throw new IllegalArgumentException("Uid can not be null.");
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(" WHERE ").append(this.dialect.quoteIdentifier(nameOfUidParameter)).append(" = ?");
 		this.whereClause = sb.toString();
+		this.uidParameter = new SQLParameter(sqlTypeOfUid, userUid.getUidValue(), nameOfUidParameter);
 	}
 	
 	/**
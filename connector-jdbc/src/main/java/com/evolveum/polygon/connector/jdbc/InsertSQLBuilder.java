@@ -33,6 +33,36 @@ public class InsertSQLBuilder implements InsertOrUpdateSQL{
 	private String namesOfColumn = "";
 	private String valuesOfColumn = "";
 	private List<SQLParameter> parameters = null;
+	private int maxCountOfParameters = DEFAULT_MAX_COUNT_OF_PARAMETERS;
+	private int maxCountOfRows = DEFAULT_MAX_COUNT_OF_ROWS;
+	
+	/**
+	 * Lowest limit of bind parameters of the common databases (SQL Server allows 2100 parameters).
+	 */
+	public static final int DEFAULT_MAX_COUNT_OF_PARAMETERS = 2000;
+	
+	/**
+	 * Lowest limit of rows in one VALUES clause of the common databases (SQL Server allows 1000 rows).
+	 */
+	public static final int DEFAULT_MAX_COUNT_OF_ROWS = 1000;
+	
+	private final SQLDialect dialect;
+	
+	public InsertSQLBuilder() {
+		this(SQLDialect.create(SQLDialect.GENERIC, null));
+	}
+	
+	/**
+	 * @param dialect dialect used for quoting of the names and for the limits of multi-row inserts
+	 */
+	public InsertSQLBuilder(SQLDialect dialect) {
+		if(dialect == null){
+			throw new IllegalArgumentException("SQL dialect can not be null.");
+		}
+		this.dialect = dialect;
+		this.maxCountOfParameters = dialect.getMaxCountOfParameters();
+		this.maxCountOfRows = dialect.getMaxCountOfRowsInInsert();
+	}
 	
 	@Override
 	public SQLRequest build(){
@@ -50,7 +80,7 @@ public class InsertSQLBuilder implements InsertOrUpdateSQL{
 		}
 		
 		StringBuilder sb = new StringBuilder();
-		sb.append("INSERT INTO ").append(" ").append(this.nameOfTable).append(" ").append(this.namesOfColumn).append(" ) VALUES ").append(this.valuesOfColumn).append(" )");
+		sb.append("INSERT INTO ").append(" ").append(this.dialect.quoteIdentifier(this.nameOfTable)).append(" ").append(this.namesOfColumn).append(" ) VALUES ").append(this.valuesOfColumn).append(" )");
 		return new SQLRequest(sb.toString(), this.parameters);
 	}
 	
@@ -61,6 +91,103 @@ public class InsertSQLBuilder implements InsertOrUpdateSQL{
 		return build();
 	}
 	
+	/**
+	 * Builds multi-row inserts 'INSERT INTO table (a, b) VALUES (?, ?), (?, ?), ...'. Rows are split to more
+	 * requests, so no request exceeds the max count of bind parameters and the max count of rows.
+	 * All rows have to contain the same columns in the same order. For dialects without multi-row VALUES
+	 * (Oracle) 'INSERT ALL INTO table (a, b) VALUES (?, ?) INTO ... SELECT 1 FROM DUAL' is built.
+	 */
+	public List<SQLRequest> buildMultiRow(String nameOfTable, List<List<SQLParameter>> rows){
+		if(StringUtil.isBlank(nameOfTable)){
+			throw new IllegalArgumentException("Variable nameOfTable can not be empty.");
+		}
+		if(rows == null || rows.isEmpty()){
+			throw new IllegalArgumentException("Rows of SQL parameters can not be empty.");
+		}
+		
+		List<SQLParameter> firstRow = rows.get(0);
+		if(firstRow == null || firstRow.isEmpty()){
+			throw new IllegalArgumentException("SQL parameters can not be empty.");
+		}
+		int countOfColumns = firstRow.size();
+		StringBuilder sbNames = new StringBuilder();
+		StringBuilder sbRow = new StringBuilder();
+		for(SQLParameter parameter : firstRow){
+			if(parameter == null || parameter.getName() == null){
+				throw new IllegalArgumentException("Name of SQL parameter can not be null.");
+			}
+			if(sbNames.length() != 0){
+				sbNames.append(", ");
+				sbRow.append(", ");
+			}
+			sbNames.append(this.dialect.quoteIdentifier(parameter.getName()));
+			sbRow.append("?");
+		}
+		for(List<SQLParameter> row : rows){
+			checkSameColumns(firstRow, row);
+		}
+		
+		int rowsInRequest = Math.max(1, Math.min(this.maxCountOfRows, this.maxCountOfParameters / countOfColumns));
+		boolean multiRowValues = this.dialect.isMultiRowValuesSupported();
+		String into = this.dialect.quoteIdentifier(nameOfTable) + " ( " + sbNames + " ) VALUES ";
+		String valuesOfRow = "( " + sbRow + " )";
+		
+		List<SQLRequest> ret = new ArrayList<SQLRequest>();
+		for(int start = 0; start < rows.size(); start += rowsInRequest){
+			int end = Math.min(rows.size(), start + rowsInRequest);
+			StringBuilder sb = new StringBuilder(multiRowValues ? "INSERT INTO " + into : "INSERT ALL");
+			List<SQLParameter> parametersOfRequest = new ArrayList<SQLParameter>((end - start) * countOfColumns);
+			for(int i = start; i < end; i++){
+				if(multiRowValues){
+					if(i != start){
+						sb.append(", ");
+					}
+				} else {
+					sb.append(" INTO ").append(into);
+				}
+				sb.append(valuesOfRow);
+				parametersOfRequest.addAll(rows.get(i));
+			}
+			if(!multiRowValues){
+				sb.append(" SELECT 1 FROM DUAL");
+			}
+			ret.add(new SQLRequest(sb.toString(), parametersOfRequest));
+		}
+		return ret;
+	}
+	
+	private void checkSameColumns(List<SQLParameter> firstRow, List<SQLParameter> row){
+		if(row == null || row.size() != firstRow.size()){
+			throw new IllegalArgumentException("All rows have to contain the same count of SQL parameters.");
+		}
+		for(int i = 0; i < row.size(); i++){
+			SQLParameter parameter = row.get(i);
+			if(parameter == null || !firstRow.get(i).getName().equals(parameter.getName())){
+				throw new IllegalArgumentException("All rows have to contain the same columns in the same order.");
+			}
+		}
+	}
+	
+	/**
+	 * @param maxCountOfParameters max count of bind parameters in one request created by {@link #buildMultiRow(String, List)}
+	 */
+	public void setMaxCountOfParameters(int maxCountOfParameters) {
+		if(maxCountOfParameters < 1){
+			throw new IllegalArgumentException("Max count of parameters has to be greater than zero.");
+		}
+		this.maxCountOfParameters = maxCountOfParameters;
+	}
+	
+	/**
+	 * @param maxCountOfRows max count of rows in one request created by {@link #buildMultiRow(String, List)}
+	 */
+	public void setMaxCountOfRows(int maxCountOfRows) {
+		if(maxCountOfRows < 1){
+			throw new IllegalArgumentException("Max count of rows has to be greater than zero.");
+		}
+		this.maxCountOfRows = maxCountOfRows;
+	}
+	
 	/**
 	 * @param nameOfTable the nameOfTable to set
 	 */
@@ -91,6 +218,7 @@ public class InsertSQLBuilder implements InsertOrUpdateSQL{
 		if(name == null){
 			throw new IllegalArgumentException("Name of SQL parameter can not be null.");
 		}
+		name = this.dialect.quoteIdentifier(name);
 
 		StringBuilder sbName = new StringBuilder();
 		if(StringUtil.isBlank(this.namesOfColumn)){
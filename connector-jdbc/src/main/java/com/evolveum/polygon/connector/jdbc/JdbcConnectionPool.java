@@ -0,0 +1,400 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.identityconnectors.common.StringUtil;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.common.security.GuardedString;
+
+/**
+ * Bounded pool of JDBC connections shared by all connector instances with the same configuration.
+ * Idle connections are validated by the configured validation query before they are handed out
+ * again, and the time spent waiting for a free connection is recorded.
+ *
+ */
+public class JdbcConnectionPool {
+
+	private static final Log LOGGER = Log.getLog(JdbcConnectionPool.class);
+	
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+	
+	private static final Map<String, JdbcConnectionPool> POOLS = new HashMap<String, JdbcConnectionPool>();
+	private static final ReentrantLock POOLS_LOCK = new ReentrantLock();
+	
+	/**
+	 * Opens new physical connection to the database.
+	 */
+	public interface ConnectionFactory {
+		
+		public Connection openConnection() throws SQLException;
+	}
+	
+	private final String key;
+	private final ConnectionFactory factory;
+	private final int maxSize;
+	private final long borrowTimeout;
+	private final long validationInterval;
+	private final String validationQuery;
+	private final int statementCacheSize;
+	private final TableMetadataCache tableMetadataCache;
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+	private final Map<Connection, PooledConnection> borrowed = new ConcurrentHashMap<Connection, PooledConnection>();
+	private int references = 0;
+	private volatile boolean closed = false;
+	
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong borrowWaitNanos = new AtomicLong();
+	private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+	private final AtomicLong borrowTimeoutCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong invalidatedCount = new AtomicLong();
+	
+	private static class PooledConnection {
+		
+		private final Connection connection;
+		private final PreparedStatementCache statementCache;
+		private long lastUsed = System.currentTimeMillis();
+		
+		private PooledConnection(Connection connection, int statementCacheSize) {
+			this.connection = connection;
+			this.statementCache = statementCacheSize > 0 ? new PreparedStatementCache(connection, statementCacheSize) : null;
+		}
+	}
+	
+	private JdbcConnectionPool(String key, ConnectionFactory factory, AbstractJdbcConfiguration config) {
+		this.key = key;
+		this.factory = factory;
+		this.maxSize = config.getConnectionPoolMaxSize();
+		this.borrowTimeout = config.getConnectionPoolBorrowTimeout();
+		this.validationInterval = config.getConnectionPoolValidationInterval();
+		this.validationQuery = config.getValidConnectionQuery();
+		this.statementCacheSize = config.getPreparedStatementCacheSize();
+		this.tableMetadataCache = new TableMetadataCache(config.getSchemaCacheTimeToLive());
+		this.permits = new Semaphore(this.maxSize, true);
+	}
+	
+	/**
+	 * Returns the pool shared by all connector instances with the same configuration,
+	 * the pool is created when it does not exist yet. Every call has to be paired with {@link #release()}.
+	 */
+	public static JdbcConnectionPool acquire(AbstractJdbcConfiguration config, ConnectionFactory factory) {
+		String key = createKey(config);
+		POOLS_LOCK.lock();
+		try {
+			JdbcConnectionPool pool = POOLS.get(key);
+			if(pool == null){
+				pool = new JdbcConnectionPool(key, factory, config);
+				POOLS.put(key, pool);
+				LOGGER.ok("Created connection pool with max size {0}", pool.maxSize);
+			}
+			pool.references++;
+			return pool;
+		} finally {
+			POOLS_LOCK.unlock();
+		}
+	}
+	
+	/**
+	 * Releases the reference obtained by {@link #acquire(AbstractJdbcConfiguration, ConnectionFactory)}.
+	 * Pool is closed when no connector instance uses it anymore.
+	 */
+	public void release() {
+		POOLS_LOCK.lock();
+		try {
+			this.references--;
+			if(this.references > 0){
+				return;
+			}
+			POOLS.remove(this.key);
+		} finally {
+			POOLS_LOCK.unlock();
+		}
+		close();
+	}
+	
+	/**
+	 * Borrows connection from the pool, waits at most for the configured borrow timeout
+	 * when the pool is exhausted.
+	 */
+	public Connection borrow() throws SQLException {
+		if(closed){
+			throw new SQLException("Connection pool is closed.");
+		}
+		long start = System.nanoTime();
+		boolean acquired;
+		try {
+			acquired = this.permits.tryAcquire(this.borrowTimeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for connection from the pool.", e);
+		}
+		recordBorrowWait(System.nanoTime() - start);
+		if(!acquired){
+			this.borrowTimeoutCount.incrementAndGet();
+			throw new SQLTimeoutException("No connection was available in the pool within " + this.borrowTimeout + " ms (max size " + this.maxSize + ").");
+		}
+		try {
+			PooledConnection pooled;
+			while((pooled = this.idle.pollFirst()) != null){
+				if(isUsable(pooled)){
+					break;
+				}
+				discard(pooled);
+			}
+			if(pooled == null){
+				Connection connection = this.factory.openConnection();
+				if(connection == null){
+					throw new SQLException("It was not possible to open new connection to the database.");
+				}
+				this.createdCount.incrementAndGet();
+				pooled = new PooledConnection(connection, this.statementCacheSize);
+			}
+			this.borrowed.put(pooled.connection, pooled);
+			return pooled.connection;
+		} catch (SQLException | RuntimeException e) {
+			this.permits.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns the borrowed connection back to the pool. Open transaction is rolled back.
+	 */
+	public void giveBack(Connection connection) {
+		PooledConnection pooled = this.borrowed.remove(connection);
+		if(pooled == null){
+			return;
+		}
+		try {
+			if(this.closed || connection.isClosed()){
+				discard(pooled);
+				return;
+			}
+			if(!connection.getAutoCommit()){
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			pooled.lastUsed = System.currentTimeMillis();
+			this.idle.offerFirst(pooled);
+		} catch (SQLException ex) {
+			LOGGER.warn("Connection could not be returned to the pool, discarding it: {0}", ex.getMessage());
+			discard(pooled);
+		} finally {
+			this.permits.release();
+		}
+	}
+	
+	/**
+	 * Closes the borrowed connection instead of returning it to the pool, e.g. when it was found broken.
+	 */
+	public void invalidate(Connection connection) {
+		PooledConnection pooled = this.borrowed.remove(connection);
+		if(pooled == null){
+			return;
+		}
+		this.invalidatedCount.incrementAndGet();
+		try {
+			discard(pooled);
+		} finally {
+			this.permits.release();
+		}
+	}
+	
+	/**
+	 * @return cache of prepared statements of the borrowed connection, or null when caching is disabled
+	 */
+	public PreparedStatementCache getStatementCache(Connection connection) {
+		PooledConnection pooled = this.borrowed.get(connection);
+		if(pooled == null){
+			return null;
+		}
+		return pooled.statementCache;
+	}
+	
+	/**
+	 * @return cache of metadata of the tables, shared together with the pool
+	 */
+	public TableMetadataCache getTableMetadataCache() {
+		return this.tableMetadataCache;
+	}
+	
+	/**
+	 * @return true when the connection answers the validation query
+	 */
+	public boolean isValid(Connection connection) {
+		try {
+			if(connection.isClosed()){
+				return false;
+			}
+			if(StringUtil.isBlank(this.validationQuery)){
+				return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+			}
+			Statement stmt = connection.createStatement();
+			try {
+				stmt.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+				stmt.execute(this.validationQuery);
+			} finally {
+				stmt.close();
+			}
+			return true;
+		} catch (SQLException ex) {
+			LOGGER.info("Validation of connection failed: {0}", ex.getMessage());
+			return false;
+		}
+	}
+	
+	private boolean isUsable(PooledConnection pooled) {
+		if(System.currentTimeMillis() - pooled.lastUsed < this.validationInterval){
+			return true;
+		}
+		return isValid(pooled.connection);
+	}
+	
+	private void discard(PooledConnection pooled) {
+		if(pooled.statementCache != null){
+			pooled.statementCache.close();
+		}
+		try {
+			pooled.connection.close();
+		} catch (SQLException ex) {
+			LOGGER.info("Closing of discarded connection failed: {0}", ex.getMessage());
+		}
+	}
+	
+	private void recordBorrowWait(long nanos) {
+		this.borrowCount.incrementAndGet();
+		this.borrowWaitNanos.addAndGet(nanos);
+		this.maxBorrowWaitNanos.accumulateAndGet(nanos, Math::max);
+	}
+	
+	private void close() {
+		this.closed = true;
+		PooledConnection pooled;
+		while((pooled = this.idle.pollFirst()) != null){
+			discard(pooled);
+		}
+		LOGGER.ok("Closed connection pool, borrows: {0}, average borrow wait: {1} ms, max borrow wait: {2} ms, timeouts: {3}",
+				getBorrowCount(), getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(), getBorrowTimeoutCount());
+	}
+	
+	/**
+	 * @return number of physical connections currently lent to connector instances
+	 */
+	public int getActiveCount() {
+		return this.borrowed.size();
+	}
+	
+	/**
+	 * @return number of physical connections waiting in the pool
+	 */
+	public int getIdleCount() {
+		return this.idle.size();
+	}
+	
+	/**
+	 * @return number of connections which can be borrowed now without waiting, idle or not opened yet
+	 */
+	public int getAvailableCount() {
+		return this.permits.availablePermits();
+	}
+	
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+	
+	public long getBorrowCount() {
+		return this.borrowCount.get();
+	}
+	
+	public long getBorrowTimeoutCount() {
+		return this.borrowTimeoutCount.get();
+	}
+	
+	public long getCreatedCount() {
+		return this.createdCount.get();
+	}
+	
+	public long getInvalidatedCount() {
+		return this.invalidatedCount.get();
+	}
+	
+	public double getAverageBorrowWaitMillis() {
+		long count = this.borrowCount.get();
+		if(count == 0){
+			return 0;
+		}
+		return this.borrowWaitNanos.get() / (count * 1000000.0);
+	}
+	
+	public double getMaxBorrowWaitMillis() {
+		return this.maxBorrowWaitNanos.get() / 1000000.0;
+	}
+	
+	private static String createKey(AbstractJdbcConfiguration config) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(config.getDatasource()).append('\u0000')
+			.append(config.getJdbcDriver()).append('\u0000')
+			.append(config.getJdbcUrl()).append('\u0000')
+			.append(config.getHost()).append('\u0000')
+			.append(config.getPort()).append('\u0000')
+			.append(config.getNameOfDatabase()).append('\u0000')
+			.append(config.getUsername()).append('\u0000')
+			.append(Arrays.toString(config.getJNDIProperties())).append('\u0000')
+			.append(config.getValidConnectionQuery()).append('\u0000')
+			.append(config.getConnectionPoolMaxSize()).append('\u0000')
+			.append(config.getConnectionPoolBorrowTimeout()).append('\u0000')
+			.append(config.getConnectionPoolValidationInterval()).append('\u0000')
+			.append(config.getPreparedStatementCacheSize()).append('\u0000')
+			.append(config.getSchemaCacheTimeToLive()).append('\u0000');
+		GuardedString password = config.getUserPassword();
+		if(password != null){
+			password.access(new GuardedString.Accessor() {
+				@Override
+				public void access(char[] chars) {
+					sb.append(new String(chars));
+				}
+			});
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for(byte b : digest){
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported.", e);
+		}
+	}
+}
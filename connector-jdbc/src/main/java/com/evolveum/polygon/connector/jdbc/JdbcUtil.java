@@ -25,11 +25,9 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.identityconnectors.common.StringUtil;
 
@@ -78,7 +76,7 @@ public final class JdbcUtil {
         	return Boolean.class;
         }else if(type == Types.TINYINT){
         	return Byte.class;
-        }else if(type == Types.BLOB || type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY){
+        }else if(isBinary(type)){
         	return byte[].class;
         }else if(type == Types.DECIMAL || type == Types.NUMERIC){
         	return BigDecimal.class;
@@ -89,39 +87,149 @@ public final class JdbcUtil {
         }
     }
 	
+	/**
+	 * @return true for types of columns which can hold values too big to be read at once; long character
+	 * types (e.g. MySQL TEXT, SQL Server VARCHAR(MAX)) are not large objects, they are read as strings
+	 */
+	public static boolean isLargeObject(int type) {
+		return type == Types.BLOB || type == Types.LONGVARBINARY || type == Types.CLOB || type == Types.NCLOB;
+	}
+	
+	public static boolean isBinary(int type) {
+		return type == Types.BLOB || type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY;
+	}
+	
 	public static Object getValueOfColumn(int type, int i, ResultSet rs, String timestampPresentation) throws SQLException{
+		return getColumnReader(type, timestampPresentation).read(rs, i);
+	}
+	
+	public static ColumnReader getColumnReader(int type, final String timestampPresentation){
 		
 		if(type == Types.TINYINT){
-			return rs.getByte(i);
+			return BYTE_READER;
 		} else if(type == Types.DECIMAL || type == Types.NUMERIC){
-			return rs.getBigDecimal(i);
+			return BIG_DECIMAL_READER;
 		} else if(type == Types.DOUBLE || type == Types.FLOAT || type == Types.REAL || type == Types.INTEGER || type == Types.BIGINT){
-			return rs.getObject(i);
+			return OBJECT_READER;
 		} else if(type == Types.BLOB || type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY){
-			return rs.getObject(i);
+			return OBJECT_READER;
 		} else if(type == Types.TIMESTAMP){
-			return toConnId(rs.getTimestamp(i), timestampPresentation);
+			if(TemporalConverter.isUnixEpoch(timestampPresentation)){
+				return TIMESTAMP_EPOCH_READER;
+			} else if(TemporalConverter.isString(timestampPresentation)){
+				return TIMESTAMP_STRING_READER;
+			}
+			return new ColumnReader() {
+				@Override
+				public Object read(ResultSet rs, int i) throws SQLException {
+					return toConnId(rs.getTimestamp(i), timestampPresentation);
+				}
+			};
 		} else if(type == Types.DATE){
-			return toConnId(rs.getDate(i), timestampPresentation);
+			if(TemporalConverter.isUnixEpoch(timestampPresentation)){
+				return DATE_EPOCH_READER;
+			} else if(TemporalConverter.isString(timestampPresentation)){
+				return DATE_STRING_READER;
+			}
+			return new ColumnReader() {
+				@Override
+				public Object read(ResultSet rs, int i) throws SQLException {
+					return toConnId(rs.getDate(i), timestampPresentation);
+				}
+			};
 		} else if(type == Types.TIME){
-			return toConnId(rs.getTime(i));
+			return TIME_READER;
 		} else if(type == Types.BIT || type == Types.BOOLEAN){
-			return rs.getBoolean(i);
+			return BOOLEAN_READER;
 		} else if(type == Types.NULL){
-			return rs.getObject(i);
+			return OBJECT_READER;
 		} else {
-			return rs.getString(i);
+			return STRING_READER;
 		}
 	}
 	
+	private static final ColumnReader BYTE_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			return rs.getByte(i);
+		}
+	};
+	
+	private static final ColumnReader BIG_DECIMAL_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			return rs.getBigDecimal(i);
+		}
+	};
+	
+	private static final ColumnReader OBJECT_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			return rs.getObject(i);
+		}
+	};
+	
+	private static final ColumnReader TIMESTAMP_EPOCH_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			Timestamp timestamp = rs.getTimestamp(i);
+			return timestamp == null ? null : timestamp.getTime();
+		}
+	};
+	
+	private static final ColumnReader TIMESTAMP_STRING_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			Timestamp timestamp = rs.getTimestamp(i);
+			return timestamp == null ? null : TemporalConverter.format(timestamp);
+		}
+	};
+	
+	private static final ColumnReader DATE_EPOCH_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			Date date = rs.getDate(i);
+			return date == null ? null : date.getTime();
+		}
+	};
+	
+	private static final ColumnReader DATE_STRING_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			Date date = rs.getDate(i);
+			return date == null ? null : TemporalConverter.format(date);
+		}
+	};
+	
+	private static final ColumnReader TIME_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			return toConnId(rs.getTime(i));
+		}
+	};
+	
+	private static final ColumnReader BOOLEAN_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			return rs.getBoolean(i);
+		}
+	};
+	
+	private static final ColumnReader STRING_READER = new ColumnReader() {
+		@Override
+		public Object read(ResultSet rs, int i) throws SQLException {
+			return rs.getString(i);
+		}
+	};
+	
 	public static Object toConnId(Date date, String timestampPresentation){
 		if(date == null){
 			return null;
 		}
-		if(timestampPresentation != null && timestampPresentation.equalsIgnoreCase("unixEpoch")){
+		if(TemporalConverter.isUnixEpoch(timestampPresentation)){
 			return date.getTime();
-		} else if(timestampPresentation != null && timestampPresentation.equalsIgnoreCase("string")){
-			return new SimpleDateFormat("yyyy-MM-dd").format(date);
+		} else if(TemporalConverter.isString(timestampPresentation)){
+			return TemporalConverter.format(date);
 		} else {
 			throw new IllegalArgumentException("Timestamp Presentation mode has invalid value: '" + timestampPresentation + "'");
 		}
@@ -131,21 +239,17 @@ public final class JdbcUtil {
 		if(time == null){
 			return null;
 		}
-		try {
-			return new SimpleDateFormat("HH:mm:ss.SSSXXX").format(time);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException("It is not possible to parse Time from input value:'"+time.toString()+"' ");
-		}
+		return TemporalConverter.format(time);
 	}
 	
 	public static Object toConnId(Timestamp timestamp, String timestampPresentation){
 		if(timestamp == null){
 			return null;
 		}
-		if(timestampPresentation != null && timestampPresentation.equalsIgnoreCase("unixEpoch")){
+		if(TemporalConverter.isUnixEpoch(timestampPresentation)){
 			return timestamp.getTime();
-		} else if(timestampPresentation != null && timestampPresentation.equalsIgnoreCase("string")){
-			return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").format(timestamp);
+		} else if(TemporalConverter.isString(timestampPresentation)){
+			return TemporalConverter.format(timestamp);
 		} else {
 			throw new IllegalArgumentException("Timestamp Presentation mode has invalid value: '" + timestampPresentation + "'");
 		}
@@ -153,8 +257,8 @@ public final class JdbcUtil {
 	
 	public static int countChar(String str, char sch){
 		int count = 0;
-		for(char ch :str.toCharArray()){
-			if(sch == ch){
+		for(int i = 0; i < str.length(); i++){
+			if(sch == str.charAt(i)){
 				count++;
 			}
 		}
@@ -162,125 +266,285 @@ public final class JdbcUtil {
 	}
 	
 	public static void setSqlParameters(PreparedStatement pstmt, String sql, List<SQLParameter> sqlValuesOfParameters) throws SQLException {
-		if(Integer.compare(countChar(sql, '?'), sqlValuesOfParameters.size()) != 0){
+		if(countChar(sql, '?') != sqlValuesOfParameters.size()){
 			throw new IllegalArgumentException("Count of provided parameters and count of needed parameters in sql query is not same.");
 		}
 		
-		for(int i=1; i< sqlValuesOfParameters.size()+1;i++){
-			
-			int sqlType = sqlValuesOfParameters.get(i-1).getSqlType();
-			Object valueWithOriginalType = sqlValuesOfParameters.get(i-1).getValue();
-			
-			Object value = convertTypeOfValueToTypeFromTable(valueWithOriginalType, sqlType);
-			
-			if(value == null) {
-				pstmt.setObject(i, sqlType);
-	        }else if(sqlType == Types.NULL) {
-	        	pstmt.setObject(i, value);  
-	        }else if(value instanceof String){
-	        	pstmt.setString(i, (String)value);
-	        }else if(value instanceof Integer){
-	        	pstmt.setInt(i, (Integer)value);
-	        }else if(value instanceof Boolean){
-	        	pstmt.setBoolean(i, (Boolean)value);
-	        }else if(value instanceof Double){
-	        	pstmt.setDouble(i, (Double)value);
-	        }else if(value instanceof Float){
-	        	pstmt.setFloat(i, (Float)value);
-	        }else if(value instanceof Long){
-	        	pstmt.setLong(i, (Long)value);
-	        }else if(value instanceof byte[]){
-	        	pstmt.setBytes(i, (byte[])value);
-	        }else if(value instanceof Timestamp){
-	        	pstmt.setTimestamp(i, (Timestamp)value);
-	        }else if(value instanceof Date){
-	        	pstmt.setDate(i, (Date)value);
-	        }else if(value instanceof Time){
-	        	pstmt.setTime(i, (Time)value);
-	        }else if(value instanceof Date){
-	        	pstmt.setDate(i, (Date)value);
-	        }else if(value instanceof BigDecimal){
-	        	pstmt.setBigDecimal(i, (BigDecimal)value);
-	        }else if(value instanceof BigInteger){
-	        	pstmt.setLong(i, ((BigInteger)value).longValue());
-	        }else if(value instanceof Byte){
-	        	pstmt.setByte(i, (Byte)value);
-	        }else if(value instanceof Blob){
-	        	pstmt.setBlob(i, (Blob)value);
-	        } else {
-	        	pstmt.setObject(i, value);
-	        }	
+		for(int i=0; i < sqlValuesOfParameters.size(); i++){
+			SQLParameter parameter = sqlValuesOfParameters.get(i);
+			getParameterBinder(parameter.getSqlType()).bind(pstmt, i + 1, parameter.getValue());
 		}
 	}
 	
-	private static Object convertTypeOfValueToTypeFromTable(Object value, int sqlType){
-		if (value == null && (sqlType == Types.BIT || sqlType == Types.BOOLEAN)) {
-			return Boolean.FALSE;
-		} else if(value == null){
-			return null;
+	/**
+	 * Binds parameters of the request with binders precomputed by {@link SQLRequest#getParameterBinders()}.
+	 */
+	public static void setSqlParameters(PreparedStatement pstmt, SQLRequest request) throws SQLException {
+		setSqlParameters(pstmt, request.getCountOfPlaceholders(), request.getParameterBinders(), request.getParameters());
+	}
+	
+	static void setSqlParameters(PreparedStatement pstmt, int countOfPlaceholders, ParameterBinder[] binders, List<SQLParameter> sqlValuesOfParameters) throws SQLException {
+		if(countOfPlaceholders != sqlValuesOfParameters.size()){
+			throw new IllegalArgumentException("Count of provided parameters and count of needed parameters in sql query is not same.");
 		}
-		if(sqlType == Types.DECIMAL || sqlType == Types.NUMERIC || sqlType == Types.DOUBLE){
-			if(value instanceof BigDecimal || value instanceof Double || value instanceof Float){
-				return value;
-			} else if(value instanceof String){
-				return Double.valueOf((String) value);
+		
+		for(int i=0; i < binders.length; i++){
+			binders[i].bind(pstmt, i + 1, sqlValuesOfParameters.get(i).getValue());
+		}
+	}
+	
+	public static ParameterBinder[] getParameterBinders(List<SQLParameter> sqlValuesOfParameters) {
+		ParameterBinder[] binders = new ParameterBinder[sqlValuesOfParameters.size()];
+		for(int i=0; i < binders.length; i++){
+			binders[i] = getParameterBinder(sqlValuesOfParameters.get(i).getSqlType());
+		}
+		return binders;
+	}
+	
+	public static ParameterBinder getParameterBinder(int sqlType){
+		switch (sqlType) {
+		case Types.DECIMAL:
+		case Types.NUMERIC:
+		case Types.DOUBLE:
+			return DOUBLE_BINDER;
+		case Types.FLOAT:
+		case Types.REAL:
+			return FLOAT_BINDER;
+		case Types.BIGINT:
+			return BIGINT_BINDER;
+		case Types.INTEGER:
+		case Types.SMALLINT:
+			return INTEGER_BINDER;
+		case Types.TIMESTAMP:
+			return TIMESTAMP_BINDER;
+		case Types.DATE:
+			return DATE_BINDER;
+		case Types.TIME:
+			return TIME_BINDER;
+		case Types.BIT:
+		case Types.BOOLEAN:
+			return BOOLEAN_BINDER;
+		case Types.LONGVARCHAR:
+		case Types.VARCHAR:
+		case Types.CHAR:
+			return STRING_BINDER;
+		case Types.NULL:
+			return UNTYPED_BINDER;
+		default:
+			ParameterBinder binder = OTHER_BINDERS.get(sqlType);
+			if(binder == null){
+				binder = OTHER_BINDERS.computeIfAbsent(sqlType, OtherTypeBinder::new);
+			}
+			return binder;
+		}
+	}
+	
+	/**
+	 * Binders of the SQL types without own binder, one per SQL type, they differ only by the type of null.
+	 */
+	private static final ConcurrentHashMap<Integer, ParameterBinder> OTHER_BINDERS = new ConcurrentHashMap<Integer, ParameterBinder>();
+	
+	private static final class OtherTypeBinder implements ParameterBinder {
+		
+		private final int sqlType;
+		
+		private OtherTypeBinder(int sqlType) {
+			this.sqlType = sqlType;
+		}
+		
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, sqlType);
+			} else {
+				setValue(pstmt, i, value);
+			}
+		}
+	}
+	
+	private static final ParameterBinder DOUBLE_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.DOUBLE);
+			} else if(value instanceof BigDecimal){
+				pstmt.setBigDecimal(i, (BigDecimal)value);
+			} else if(value instanceof Double){
+				pstmt.setDouble(i, (Double)value);
+			} else if(value instanceof Float){
+				pstmt.setFloat(i, (Float)value);
 			} else {
-				return Double.valueOf(value.toString());
+				pstmt.setDouble(i, Double.parseDouble(value.toString()));
 			}
-		} else if(sqlType == Types.FLOAT || sqlType == Types.REAL){
-			if(value instanceof BigDecimal || value instanceof Double || value instanceof Float){
-				return value;
+		}
+	};
+	
+	private static final ParameterBinder FLOAT_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.FLOAT);
+			} else if(value instanceof BigDecimal){
+				pstmt.setBigDecimal(i, (BigDecimal)value);
+			} else if(value instanceof Double){
+				pstmt.setDouble(i, (Double)value);
+			} else if(value instanceof Float){
+				pstmt.setFloat(i, (Float)value);
+			} else {
+				pstmt.setFloat(i, Float.parseFloat(value.toString()));
+			}
+		}
+	};
+	
+	private static final ParameterBinder BIGINT_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.BIGINT);
+			} else if(value instanceof Long){
+				pstmt.setLong(i, (Long)value);
+			} else if(value instanceof Integer){
+				pstmt.setInt(i, (Integer)value);
+			} else if(value instanceof BigInteger){
+				pstmt.setLong(i, ((BigInteger)value).longValue());
+			} else {
+				pstmt.setLong(i, Long.parseLong(value.toString()));
+			}
+		}
+	};
+	
+	private static final ParameterBinder INTEGER_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.INTEGER);
+			} else if(value instanceof Integer){
+				pstmt.setInt(i, (Integer)value);
+			} else if(value instanceof Short){
+				pstmt.setShort(i, (Short)value);
 			} else if(value instanceof String){
-				return Float.valueOf((String) value);
+				pstmt.setInt(i, Integer.parseInt((String)value));
+			} else {
+				setValue(pstmt, i, value);
+			}
+		}
+	};
+	
+	private static final ParameterBinder TIMESTAMP_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.TIMESTAMP);
+			} else if(value instanceof Timestamp){
+				pstmt.setTimestamp(i, (Timestamp)value);
 			} else {
-				return Float.valueOf(value.toString());
+				pstmt.setTimestamp(i, stringOrLongToTimestamp(value));
 			}
-		} else if(sqlType == Types.BIGINT){
-			if(value instanceof BigInteger || value instanceof Long || value instanceof Integer){
-				return value;
+		}
+	};
+	
+	private static final ParameterBinder DATE_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.DATE);
+			} else if(value instanceof Date){
+				pstmt.setDate(i, (Date)value);
+			} else {
+				pstmt.setDate(i, stringOrLongToDate(value));
+			}
+		}
+	};
+	
+	private static final ParameterBinder TIME_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.TIME);
+			} else if(value instanceof Time){
+				pstmt.setTime(i, (Time)value);
+			} else {
+				pstmt.setTime(i, stringToTime(value));
+			}
+		}
+	};
+	
+	private static final ParameterBinder BOOLEAN_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setBoolean(i, false);
+			} else if(value instanceof Boolean){
+				pstmt.setBoolean(i, (Boolean)value);
 			} else if(value instanceof String){
-				return Long.valueOf((String) value);
+				pstmt.setBoolean(i, Boolean.parseBoolean((String)value));
+			} else {
+				setValue(pstmt, i, value);
+			}
+		}
+	};
+	
+	private static final ParameterBinder STRING_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.VARCHAR);
 			} else {
-				return Long.valueOf(value.toString());
+				pstmt.setString(i, value.toString());
 			}
-		} else if(sqlType == Types.TIMESTAMP){
-			return stringOrLongToTimestamp(value);
-		} else if(sqlType == Types.DATE){
-			return stringOrLongToDate(value);
-		} else if(sqlType == Types.TIME){
-			return stringToTime(value);
-		} else if(sqlType == Types.BIT || sqlType == Types.BOOLEAN && value instanceof String){
-			return Boolean.valueOf((String)value);
-		} else if(sqlType == Types.LONGVARCHAR || sqlType == Types.VARCHAR || sqlType == Types.CHAR){
-			if( value instanceof String) {
-				return value;
+		}
+	};
+	
+	private static final ParameterBinder UNTYPED_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException {
+			if(value == null){
+				pstmt.setNull(i, Types.NULL);
 			} else {
-				return value.toString();
+				pstmt.setObject(i, value);
 			}
 		}
-		return value;
+	};
+	
+	private static void setValue(PreparedStatement pstmt, int i, Object value) throws SQLException {
+		if(value instanceof String){
+			pstmt.setString(i, (String)value);
+		}else if(value instanceof Integer){
+			pstmt.setInt(i, (Integer)value);
+		}else if(value instanceof Boolean){
+			pstmt.setBoolean(i, (Boolean)value);
+		}else if(value instanceof Double){
+			pstmt.setDouble(i, (Double)value);
+		}else if(value instanceof Float){
+			pstmt.setFloat(i, (Float)value);
+		}else if(value instanceof Long){
+			pstmt.setLong(i, (Long)value);
+		}else if(value instanceof byte[]){
+			pstmt.setBytes(i, (byte[])value);
+		}else if(value instanceof Timestamp){
+			pstmt.setTimestamp(i, (Timestamp)value);
+		}else if(value instanceof Date){
+			pstmt.setDate(i, (Date)value);
+		}else if(value instanceof Time){
+			pstmt.setTime(i, (Time)value);
+		}else if(value instanceof BigDecimal){
+			pstmt.setBigDecimal(i, (BigDecimal)value);
+		}else if(value instanceof BigInteger){
+			pstmt.setLong(i, ((BigInteger)value).longValue());
+		}else if(value instanceof Byte){
+			pstmt.setByte(i, (Byte)value);
+		}else if(value instanceof Blob){
+			pstmt.setBlob(i, (Blob)value);
+		} else {
+			pstmt.setObject(i, value);
+		}
 	}
 	
 	public static Timestamp stringOrLongToTimestamp(Object value){
 		if(value instanceof String){
-			Timestamp parsedTimestamp;
-			try {
-				parsedTimestamp = Timestamp.valueOf((String)value);
-			} catch (IllegalArgumentException e) {
-				try {
-					java.util.Date date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").parse((String)value);
-					parsedTimestamp = new Timestamp(date.getTime());
-				} catch (ParseException ex) {
-					throw new IllegalArgumentException("It is not possible to parse Timestamp from input string.");
-				}
-			}
-			return parsedTimestamp;
+			return TemporalConverter.parseTimestamp((String)value);
 		} else if(value instanceof Long){
-			try {
-				return new Timestamp((Long)value);
-			} catch (NumberFormatException exp) {
-				throw new IllegalArgumentException("It is not possible to create Timestamp from input value of type Long.");
-			}
+			return new Timestamp((Long)value);
 		} else {
 			throw new IllegalArgumentException("Wrong type of input value. It is possible to create Timestamp from value of type Long or String");
 		}
@@ -288,18 +552,7 @@ public final class JdbcUtil {
 	
 	public static Time stringToTime(Object value){
 		if(value instanceof String){
-			Time parsedTime;
-			try {
-				parsedTime = Time.valueOf((String)value);
-			} catch (IllegalArgumentException e) {
-				try {
-					java.util.Date date = new SimpleDateFormat("HH:mm:ss.SSSXXX").parse((String)value);
-					parsedTime = new Time(date.getTime());
-				} catch (ParseException ex) {
-					throw new IllegalArgumentException("It is not possible to parse Time from input string.");
-				}
-			}
-			return parsedTime;
+			return TemporalConverter.parseTime((String)value);
 		} else {
 			throw new IllegalArgumentException("Wrong type of input value. It is possible to create Time from value of String type.");
 		}
@@ -308,24 +561,9 @@ public final class JdbcUtil {
 
 	public static Date stringOrLongToDate(Object value){
 		if(value instanceof String){
-			Date parsedDate;
-			try {
-				parsedDate = Date.valueOf((String)value);
-			} catch (IllegalArgumentException e) {
-				try {
-					java.util.Date date = new SimpleDateFormat("yyyy-MM-dd").parse((String)value);
-					parsedDate = new Date(date.getTime());
-				} catch (ParseException ex) {
-					throw new IllegalArgumentException("It is not possible to parse Date from input string.");
-				}
-			}
-			return parsedDate;
+			return TemporalConverter.parseDate((String)value);
 		} else if(value instanceof Long){
-			try {
-				return new Date((Long)value);
-			} catch (NumberFormatException exp) {
-				throw new IllegalArgumentException("It is not possible to create Date from input value of type Long.");
-			}
+			return new Date((Long)value);
 		} else {
 			throw new IllegalArgumentException("Wrong type of input value. It is possible to create Date from value of type Long or String");
 		}
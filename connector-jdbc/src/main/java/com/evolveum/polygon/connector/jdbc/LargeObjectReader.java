@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorIOException;
+
+/**
+ * Reads large object column (BLOB, CLOB, LONGVARBINARY...) through
+ * {@link ResultSet#getBinaryStream(int)} or {@link ResultSet#getCharacterStream(int)}, so at most
+ * 'max size' bytes or characters are read from the database. Bigger value is skipped (read as null)
+ * or truncated to the max size.
+ *
+ */
+public class LargeObjectReader implements ColumnReader {
+
+	public static final String OVERFLOW_SKIP = "skip";
+	public static final String OVERFLOW_TRUNCATE = "truncate";
+	
+	private static final Log LOGGER = Log.getLog(LargeObjectReader.class);
+	private static final int SIZE_OF_BUFFER = 8192;
+	
+	private final boolean binary;
+	private final int maxSize;
+	private final boolean truncate;
+	
+	/**
+	 * @param maxSize max count of bytes or characters, zero means unlimited
+	 * @param overflow 'skip' or 'truncate'
+	 */
+	public LargeObjectReader(boolean binary, int maxSize, String overflow) {
+		this.binary = binary;
+		this.maxSize = maxSize;
+		this.truncate = OVERFLOW_TRUNCATE.equalsIgnoreCase(overflow);
+	}
+	
+	@Override
+	public Object read(ResultSet rs, int i) throws SQLException {
+		try {
+			if(binary){
+				InputStream stream = rs.getBinaryStream(i);
+				if(stream == null){
+					return null;
+				}
+				try {
+					return readBytes(stream, rs, i);
+				} finally {
+					stream.close();
+				}
+			}
+			Reader reader = rs.getCharacterStream(i);
+			if(reader == null){
+				return null;
+			}
+			try {
+				return readChars(reader, rs, i);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new ConnectorIOException("Reading of large object from column " + rs.getMetaData().getColumnName(i) + " failed: " + e.getMessage(), e);
+		}
+	}
+	
+	private byte[] readBytes(InputStream stream, ResultSet rs, int i) throws IOException, SQLException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[SIZE_OF_BUFFER];
+		int read;
+		while((read = stream.read(buffer, 0, lengthToRead(out.size(), buffer.length))) > 0){
+			out.write(buffer, 0, read);
+			if(isOverflow(out.size())){
+				if(!truncate){
+					logSkipped(rs, i);
+					return null;
+				}
+				return Arrays.copyOf(out.toByteArray(), maxSize);
+			}
+		}
+		return out.toByteArray();
+	}
+	
+	private String readChars(Reader reader, ResultSet rs, int i) throws IOException, SQLException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[SIZE_OF_BUFFER];
+		int read;
+		while((read = reader.read(buffer, 0, lengthToRead(sb.length(), buffer.length))) > 0){
+			sb.append(buffer, 0, read);
+			if(isOverflow(sb.length())){
+				if(!truncate){
+					logSkipped(rs, i);
+					return null;
+				}
+				sb.setLength(maxSize);
+				return sb.toString();
+			}
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Reads at most one unit over the max size, which is enough to recognize the overflow.
+	 */
+	private int lengthToRead(int alreadyRead, int lengthOfBuffer) {
+		if(maxSize <= 0){
+			return lengthOfBuffer;
+		}
+		return (int)Math.min(lengthOfBuffer, (long)maxSize + 1 - alreadyRead);
+	}
+	
+	private boolean isOverflow(int size) {
+		return maxSize > 0 && size > maxSize;
+	}
+	
+	private void logSkipped(ResultSet rs, int i) throws SQLException {
+		LOGGER.info("Value of column {0} is bigger than {1} and it is skipped.", rs.getMetaData().getColumnName(i), maxSize);
+	}
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.identityconnectors.common.StringUtil;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.SyncDeltaBuilder;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncResultsHandler;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.spi.SyncTokenResultsHandler;
+
+/**
+ * Reads changes of one table for LiveSync by a change column, i.e. a column which gets greater value
+ * on every insert or update of the row (last modification timestamp, rowversion or value of a sequence).
+ * Rows are read page by page ordered by the change column and the key, from the position stored in
+ * the token. The token contains value of the change column together with the key of the last row, so rows
+ * with equal value of the change column are neither skipped nor read twice. Deleted rows can not be
+ * detected by this way.
+ *
+ */
+public class LiveSyncReader {
+
+	public static final int DEFAULT_PAGE_SIZE = 500;
+	
+	private static final Log LOGGER = Log.getLog(LiveSyncReader.class);
+	private static final char SEPARATOR = ';';
+	private static final char ESCAPE = '%';
+	private static final String TIMESTAMP_PREFIX = "t:";
+	private static final String NUMBER_PREFIX = "n:";
+	private static final String BINARY_PREFIX = "b:";
+	private static final String STRING_PREFIX = "s:";
+	
+	private final AbstractJdbcConnector<?> connector;
+	private final String nameOfTable;
+	private final String keyNameOfTable;
+	private final String nameOfChangeColumn;
+	private String nameOfNameColumn = null;
+	private ObjectClass objectClass = ObjectClass.ACCOUNT;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+	
+	public LiveSyncReader(AbstractJdbcConnector<?> connector, String nameOfTable, String keyNameOfTable, String nameOfChangeColumn) {
+		if(connector == null){
+			throw new IllegalArgumentException("Connector can not be null.");
+		}
+		if(StringUtil.isBlank(nameOfTable) || StringUtil.isBlank(keyNameOfTable) || StringUtil.isBlank(nameOfChangeColumn)){
+			throw new IllegalArgumentException("Name of table, key name of table and name of change column can not be empty.");
+		}
+		this.connector = connector;
+		this.nameOfTable = nameOfTable;
+		this.keyNameOfTable = keyNameOfTable;
+		this.nameOfChangeColumn = nameOfChangeColumn;
+	}
+	
+	/**
+	 * @param nameOfNameColumn column of the name of the object, the key is used as name when it is not set
+	 */
+	public void setNameOfNameColumn(String nameOfNameColumn) {
+		this.nameOfNameColumn = nameOfNameColumn;
+	}
+	
+	public void setObjectClass(ObjectClass objectClass) {
+		if(objectClass == null){
+			throw new IllegalArgumentException("Object class can not be null.");
+		}
+		this.objectClass = objectClass;
+	}
+	
+	public void setPageSize(int pageSize) {
+		if(pageSize < 1){
+			throw new IllegalArgumentException("Page size has to be greater than zero.");
+		}
+		this.pageSize = pageSize;
+	}
+	
+	/**
+	 * Hands over changes after the token as {@link SyncDeltaType#CREATE_OR_UPDATE} deltas in the order of the changes.
+	 * Every delta carries the token of its own position, so processing can be resumed after any delta.
+	 * 
+	 * @param token position of the last processed change, null reads all rows
+	 * @return token of the last handed over change, or the given token when there was no change
+	 */
+	public SyncToken sync(SyncToken token, OperationOptions options, SyncResultsHandler handler) {
+		if(handler == null){
+			throw new IllegalArgumentException("Sync results handler can not be null.");
+		}
+		TableMetadata table = this.connector.getTableMetadata(this.nameOfTable, this.keyNameOfTable);
+		if(table == null || table.getColumn(this.nameOfChangeColumn) == null || table.getColumn(this.keyNameOfTable) == null){
+			throw new ConnectorException("Table " + this.nameOfTable + " does not contain change column " + this.nameOfChangeColumn
+					+ " or key " + this.keyNameOfTable + ".");
+		}
+		Collection<String> attributesToGet = options == null || options.getAttributesToGet() == null
+				? new ArrayList<String>() : Arrays.asList(options.getAttributesToGet());
+		List<String> columns = this.connector.getNamesOfColumnsToGet(this.nameOfTable, this.keyNameOfTable, options);
+		
+		SyncToken lastToken = token;
+		boolean stopped = false;
+		int countOfRows;
+		do {
+			SelectSQLBuilder select = new SelectSQLBuilder(this.connector.getDialect());
+			select.addNameOfTable(this.nameOfTable);
+			select.setNamesOfColumnsToGet(columns, this.keyNameOfTable, this.nameOfNameColumn, this.nameOfChangeColumn);
+			select.setWhereClause(buildCondition(table, lastToken));
+			select.setAddNameOfColumnToOrderByClause(this.nameOfChangeColumn);
+			select.setAddNameOfColumnToOrderByClause(this.keyNameOfTable);
+			select.setPageSize(this.pageSize);
+			
+			Page page = readPage(select.buildRequest(), attributesToGet, handler);
+			countOfRows = page.countOfRows;
+			stopped = page.stopped;
+			if(page.lastToken != null){
+				lastToken = page.lastToken;
+			}
+		} while(!stopped && countOfRows == this.pageSize);
+		
+		if(lastToken != null && handler instanceof SyncTokenResultsHandler){
+			((SyncTokenResultsHandler)handler).handleResult(lastToken);
+		}
+		return lastToken;
+	}
+	
+	/**
+	 * @return token of the latest change in the table, or null when the table does not contain any row with change
+	 */
+	public SyncToken getLatestSyncToken() {
+		SelectSQLBuilder select = new SelectSQLBuilder(this.connector.getDialect());
+		select.addNameOfTable(this.nameOfTable);
+		select.setAllNamesOfColumns(new String[]{this.nameOfChangeColumn, this.keyNameOfTable});
+		select.setWhereClause(" WHERE " + this.connector.getDialect().quoteIdentifier(this.nameOfChangeColumn) + " IS NOT NULL");
+		select.setAddNameOfColumnToOrderByClause(this.nameOfChangeColumn, false);
+		select.setAddNameOfColumnToOrderByClause(this.keyNameOfTable, false);
+		select.setPageSize(1);
+		
+		final SyncToken[] latest = new SyncToken[1];
+		execute(select.buildRequest(), new RawRowHandler() {
+			@Override
+			public boolean handle(ResultSet rs, Object change, String key, RowDecoder decoder) throws SQLException {
+				latest[0] = createToken(change, key);
+				return false;
+			}
+		}, null);
+		return latest[0];
+	}
+	
+	private SQLRequest buildCondition(TableMetadata table, SyncToken token) {
+		String change = this.connector.getDialect().quoteIdentifier(this.nameOfChangeColumn);
+		List<SQLParameter> parameters = new ArrayList<SQLParameter>();
+		if(token == null){
+			return new SQLRequest(change + " IS NOT NULL", parameters);
+		}
+		String value = String.valueOf(token.getValue());
+		int separator = value.indexOf(SEPARATOR);
+		if(separator == -1){
+			throw new IllegalArgumentException("Sync token '" + value + "' was not created by LiveSync of JDBC table.");
+		}
+		int sqlTypeOfChange = table.getColumn(this.nameOfChangeColumn).getSqlType();
+		int sqlTypeOfKey = table.getColumn(this.keyNameOfTable).getSqlType();
+		Object changeValue = decodeChangeValue(value.substring(0, separator));
+		String keyValue = value.substring(separator + 1);
+		if(changeValue instanceof Timestamp){
+			// DATE and TIMESTAMP WITH TIME ZONE columns are read by getTimestamp
+			sqlTypeOfChange = Types.TIMESTAMP;
+		}
+		
+		parameters.add(new SQLParameter(sqlTypeOfChange, changeValue, this.nameOfChangeColumn));
+		parameters.add(new SQLParameter(sqlTypeOfChange, changeValue, this.nameOfChangeColumn));
+		parameters.add(new SQLParameter(sqlTypeOfKey, keyValue, this.keyNameOfTable));
+		String key = this.connector.getDialect().quoteIdentifier(this.keyNameOfTable);
+		return new SQLRequest("( " + change + " > ? OR ( " + change + " = ? AND " + key + " > ? ) )", parameters);
+	}
+	
+	private Page readPage(SQLRequest request, Collection<String> attributesToGet, final SyncResultsHandler handler) {
+		final Page page = new Page();
+		execute(request, new RawRowHandler() {
+			@Override
+			public boolean handle(ResultSet rs, Object change, String key, RowDecoder decoder) throws SQLException {
+				page.countOfRows++;
+				SyncToken token = createToken(change, key);
+				List<Attribute> row = decoder.decode(rs);
+				
+				ConnectorObjectBuilder builder = new ConnectorObjectBuilder();
+				builder.setObjectClass(objectClass);
+				String uid = key;
+				builder.setUid(uid);
+				String name = uid;
+				for(Attribute attr : row){
+					if(nameOfNameColumn != null && attr.getName().equalsIgnoreCase(nameOfNameColumn) && attr.getValue().get(0) != null){
+						name = attr.getValue().get(0).toString();
+					}
+					builder.addAttribute(attr);
+				}
+				builder.setName(name);
+				
+				SyncDeltaBuilder delta = new SyncDeltaBuilder();
+				delta.setDeltaType(SyncDeltaType.CREATE_OR_UPDATE);
+				delta.setObjectClass(objectClass);
+				delta.setUid(new Uid(uid));
+				delta.setObject(builder.build());
+				delta.setToken(token);
+				page.lastToken = token;
+				if(!handler.handle(delta.build())){
+					LOGGER.ok("Processing of changes was stopped by handler.");
+					page.stopped = true;
+					return false;
+				}
+				return true;
+			}
+		}, attributesToGet);
+		return page;
+	}
+	
+	private void execute(SQLRequest request, final RawRowHandler handler, final Collection<String> attributesToGet) {
+		this.connector.executeOnConnection(request.getSql(), request.getParameters(), new AbstractJdbcConnector.ResultSetProcessor() {
+			@Override
+			public void process(ResultSet rs) throws SQLException {
+				ResultSetMetaData metaData = rs.getMetaData();
+				int indexOfChange = indexOfColumn(metaData, nameOfChangeColumn);
+				int indexOfKey = indexOfColumn(metaData, keyNameOfTable);
+				int typeOfChange = metaData.getColumnType(indexOfChange);
+				int typeOfKey = metaData.getColumnType(indexOfKey);
+				RowDecoder decoder = new RowDecoder(metaData, connector.getConfiguration(), attributesToGet);
+				while(rs.next()){
+					Object change = readChangeValue(rs, indexOfChange, typeOfChange);
+					String key = readKey(rs, indexOfKey, typeOfKey);
+					if(!handler.handle(rs, change, key, decoder)){
+						break;
+					}
+				}
+			}
+		});
+	}
+	
+	private int indexOfColumn(ResultSetMetaData metaData, String name) throws SQLException {
+		String unquoted = name.replace("\"", "").replace("`", "").replace("[", "").replace("]", "");
+		for(int i = 1; i <= metaData.getColumnCount(); i++){
+			if(metaData.getColumnName(i).equalsIgnoreCase(unquoted) || metaData.getColumnLabel(i).equalsIgnoreCase(unquoted)){
+				return i;
+			}
+		}
+		throw new SQLException("Column " + name + " is not contained in the result of the query.");
+	}
+	
+	/**
+	 * Reads the value of the change column by its SQL type, so the token does not depend on the class
+	 * returned by the driver for getObject (e.g. oracle.sql.TIMESTAMP, OffsetDateTime, LocalDateTime).
+	 */
+	private static Object readChangeValue(ResultSet rs, int index, int sqlType) throws SQLException {
+		switch(sqlType){
+		case Types.TIMESTAMP:
+		case Types.TIMESTAMP_WITH_TIMEZONE:
+		case Types.DATE:
+			return rs.getTimestamp(index);
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+		case Types.BIGINT:
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			return rs.getBigDecimal(index);
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+			return rs.getBytes(index);
+		case Types.OTHER:
+		case Types.JAVA_OBJECT:
+			return rs.getObject(index);
+		default:
+			return rs.getString(index);
+		}
+	}
+	
+	private static String readKey(ResultSet rs, int index, int sqlType) throws SQLException {
+		Object key = readChangeValue(rs, index, sqlType);
+		if(key instanceof BigDecimal){
+			return ((BigDecimal)key).toPlainString();
+		}
+		return key == null ? null : key.toString();
+	}
+	
+	/**
+	 * Value of the change column is kept in its exact form (timestamp with nanoseconds, number, bytes),
+	 * so the comparison with the stored token does not suffer from rounding. Separator and escape character
+	 * contained in string value are escaped, so the value is always followed by the first separator.
+	 */
+	static SyncToken createToken(Object change, Object key) {
+		StringBuilder sb = new StringBuilder();
+		if(change instanceof Timestamp){
+			sb.append(TIMESTAMP_PREFIX).append(change.toString());
+		} else if(change instanceof Number){
+			sb.append(NUMBER_PREFIX).append(new BigDecimal(change.toString()).toPlainString());
+		} else if(change instanceof byte[]){
+			sb.append(BINARY_PREFIX);
+			for(byte b : (byte[])change){
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+		} else {
+			sb.append(STRING_PREFIX).append(escape(String.valueOf(change)));
+		}
+		sb.append(SEPARATOR).append(key);
+		return new SyncToken(sb.toString());
+	}
+	
+	static Object decodeChangeValue(String value) {
+		if(value.startsWith(TIMESTAMP_PREFIX)){
+			return Timestamp.valueOf(value.substring(TIMESTAMP_PREFIX.length()));
+		} else if(value.startsWith(NUMBER_PREFIX)){
+			return new BigDecimal(value.substring(NUMBER_PREFIX.length()));
+		} else if(value.startsWith(BINARY_PREFIX)){
+			String hex = value.substring(BINARY_PREFIX.length());
+			byte[] bytes = new byte[hex.length() / 2];
+			for(int i = 0; i < bytes.length; i++){
+				bytes[i] = (byte)Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+			}
+			return bytes;
+		} else if(value.startsWith(STRING_PREFIX)){
+			return unescape(value.substring(STRING_PREFIX.length()));
+		}
+		throw new IllegalArgumentException("Sync token '" + value + "' was not created by LiveSync of JDBC table.");
+	}
+	
+	private static String escape(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for(char c : value.toCharArray()){
+			if(c == ESCAPE || c == SEPARATOR){
+				sb.append(ESCAPE).append(Character.forDigit((c >> 4) & 0xF, 16)).append(Character.forDigit(c & 0xF, 16));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+	
+	private static String unescape(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			if(c == ESCAPE && i + 2 < value.length()){
+				sb.append((char)Integer.parseInt(value.substring(i + 1, i + 3), 16));
+				i += 2;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+	
+	private interface RawRowHandler {
+		
+		public boolean handle(ResultSet rs, Object change, String key, RowDecoder decoder) throws SQLException;
+	}
+	
+	private static class Page {
+		
+		private int countOfRows = 0;
+		private boolean stopped = false;
+		private SyncToken lastToken = null;
+	}
+}
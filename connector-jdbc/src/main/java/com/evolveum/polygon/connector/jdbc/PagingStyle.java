@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+/**
+ * Syntax used by {@link SelectSQLBuilder} to limit count of returned rows.
+ *
+ */
+public enum PagingStyle {
+
+	/**
+	 * 'LIMIT n OFFSET m' (PostgreSQL, MySQL, MariaDB, H2).
+	 */
+	LIMIT_OFFSET,
+	
+	/**
+	 * 'OFFSET m ROWS FETCH NEXT n ROWS ONLY' (SQL:2008, Oracle 12c+, SQL Server 2012+, DB2).
+	 */
+	OFFSET_FETCH,
+	
+	/**
+	 * 'SELECT TOP n' (older SQL Server), offset is not supported.
+	 */
+	TOP
+}
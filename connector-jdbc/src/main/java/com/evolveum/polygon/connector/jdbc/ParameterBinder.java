@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Converts the value to the SQL type of the parameter and binds it to the prepared statement.
+ * Binders are chosen once per SQL type by {@link JdbcUtil#getParameterBinder(int)}.
+ *
+ */
+public interface ParameterBinder {
+
+	public void bind(PreparedStatement pstmt, int i, Object value) throws SQLException;
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.Attribute;
+
+/**
+ * Executes queries of the partitions of one scan in parallel, every partition on its own connection
+ * borrowed from the pool. Decoded rows are passed through a bounded queue to the handler, which is
+ * called only by the thread which started the scan, so the handler does not have to be thread-safe.
+ * Workers wait when the queue is full, so at most 'capacity' rows are held in memory.
+ *
+ */
+class PartitionedScan {
+
+	static final int DEFAULT_CAPACITY_OF_QUEUE = 1024;
+	
+	private static final Log LOGGER = Log.getLog(PartitionedScan.class);
+	private static final Object END_OF_PARTITION = new Object();
+	private static final long OFFER_TIMEOUT_MILLIS = 100;
+	private static final AtomicInteger COUNT_OF_SCANS = new AtomicInteger();
+	
+	private final AbstractJdbcConnector<?> connector;
+	private final JdbcConnectionPool pool;
+	private final Collection<String> attributesToGet;
+	private final BlockingQueue<Object> queue;
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private volatile boolean stopped = false;
+	
+	/**
+	 * @param connector connector which executes the statements of partitions on the connections of the pool
+	 * @param attributesToGet large object columns not contained are not read, null means all columns
+	 */
+	PartitionedScan(AbstractJdbcConnector<?> connector, JdbcConnectionPool pool, Collection<String> attributesToGet, int capacityOfQueue) {
+		this.connector = connector;
+		this.pool = pool;
+		this.attributesToGet = attributesToGet;
+		this.queue = new ArrayBlockingQueue<Object>(capacityOfQueue);
+	}
+	
+	void execute(List<SQLRequest> partitions, RowHandler handler) {
+		final int scan = COUNT_OF_SCANS.incrementAndGet();
+		ExecutorService executor = Executors.newFixedThreadPool(partitions.size(),
+				createThreadFactory("jdbc-scan-" + scan + "-", this.connector.getConfiguration().isUseVirtualThreads()));
+		try {
+			for(final SQLRequest partition : partitions){
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						executePartition(partition);
+					}
+				});
+			}
+			consume(partitions.size(), handler);
+		} finally {
+			this.stopped = true;
+			this.queue.clear();
+			executor.shutdown();
+			awaitTermination(executor);
+		}
+		Throwable cause = this.failure.get();
+		if(cause instanceof RuntimeException){
+			throw (RuntimeException)cause;
+		} else if(cause != null){
+			throw new ConnectorException(cause.getMessage(), cause);
+		}
+	}
+	
+	/**
+	 * Creates factory of virtual threads when they are requested and supported by the runtime (Java 21+),
+	 * otherwise factory of daemon platform threads.
+	 */
+	static ThreadFactory createThreadFactory(final String prefix, boolean virtual) {
+		if(virtual){
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+				return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+			} catch (ReflectiveOperationException e) {
+				LOGGER.info("Virtual threads are not supported by the runtime, platform threads are used.");
+			}
+		}
+		return new ThreadFactory() {
+			private final AtomicInteger countOfThreads = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + countOfThreads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void consume(int countOfPartitions, RowHandler handler) {
+		int running = countOfPartitions;
+		try {
+			while(running > 0){
+				Object item = this.queue.take();
+				if(item == END_OF_PARTITION){
+					running--;
+				} else if(this.failure.get() == null && !handler.handle((List<Attribute>)item)){
+					LOGGER.ok("Processing of result was stopped by handler.");
+					return;
+				}
+				if(this.failure.get() != null){
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.failure.compareAndSet(null, new ConnectorException("Partitioned scan was interrupted.", e));
+		}
+	}
+	
+	private void executePartition(SQLRequest partition) {
+		Connection connection = null;
+		boolean failed = false;
+		try {
+			connection = this.pool.borrow();
+			this.connector.executeStatement(connection, this.pool.getStatementCache(connection), partition.getSql(),
+					partition.getParameters(), new AbstractJdbcConnector.ResultSetProcessor() {
+				@Override
+				public void process(ResultSet rs) throws SQLException {
+					RowDecoder decoder = new RowDecoder(rs.getMetaData(), connector.getConfiguration(), attributesToGet);
+					while(!stopped && rs.next()){
+						if(!put(decoder.decode(rs))){
+							break;
+						}
+					}
+				}
+			});
+		} catch (SQLException | RuntimeException e) {
+			LOGGER.error(e.getMessage());
+			failed = true;
+			this.failure.compareAndSet(null, e);
+		} finally {
+			if(connection != null){
+				if(failed){
+					this.pool.invalidate(connection);
+				} else {
+					this.pool.giveBack(connection);
+				}
+			}
+			put(END_OF_PARTITION);
+		}
+	}
+	
+	/**
+	 * Waits while the queue is full, gives up when the scan was stopped.
+	 */
+	private boolean put(Object item) {
+		try {
+			while(!this.stopped){
+				if(this.queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)){
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+	
+	private void awaitTermination(ExecutorService executor) {
+		try {
+			while(!executor.awaitTermination(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)){
+				this.queue.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+		}
+	}
+}
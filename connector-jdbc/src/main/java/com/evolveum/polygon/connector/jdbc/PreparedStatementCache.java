@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.identityconnectors.common.logging.Log;
+
+/**
+ * LRU cache of prepared statements of one connection, keyed by SQL text.
+ * Statement is removed from the cache while it is used, so nested execution of the same SQL
+ * (e.g. from a row handler) gets its own statement instead of closing the result set of the outer one.
+ * Count of placeholders and binders of the parameters are cached next to the statements by the same SQL text.
+ * The cache is guarded by a {@link ReentrantLock}, which does not pin virtual threads to their carrier.
+ *
+ */
+public class PreparedStatementCache {
+
+	private static final Log LOGGER = Log.getLog(PreparedStatementCache.class);
+	
+	private final Connection connection;
+	private final int maxSize;
+	private final LinkedHashMap<String, PreparedStatement> statements;
+	private final LinkedHashMap<String, Binding> bindings;
+	private final List<PreparedStatement> evicted = new ArrayList<PreparedStatement>();
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	private boolean closed = false;
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	public PreparedStatementCache(Connection connection, int maxSize) {
+		this.connection = connection;
+		this.maxSize = maxSize;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if(size() > PreparedStatementCache.this.maxSize){
+					evicted.add(eldest.getValue());
+					evictionCount++;
+					return true;
+				}
+				return false;
+			}
+		};
+		this.bindings = new LinkedHashMap<String, Binding>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Binding> eldest) {
+				return size() > PreparedStatementCache.this.maxSize;
+			}
+		};
+	}
+	
+	/**
+	 * Placeholders and binders of one SQL for the SQL types of its parameters.
+	 */
+	private static final class Binding {
+		
+		private final int countOfPlaceholders;
+		private final int[] sqlTypes;
+		private final ParameterBinder[] binders;
+		
+		private Binding(String sql, List<SQLParameter> parameters) {
+			this.countOfPlaceholders = JdbcUtil.countChar(sql, '?');
+			this.sqlTypes = new int[parameters.size()];
+			for(int i = 0; i < this.sqlTypes.length; i++){
+				this.sqlTypes[i] = parameters.get(i).getSqlType();
+			}
+			this.binders = JdbcUtil.getParameterBinders(parameters);
+		}
+		
+		private boolean matches(List<SQLParameter> parameters) {
+			if(this.sqlTypes.length != parameters.size()){
+				return false;
+			}
+			for(int i = 0; i < this.sqlTypes.length; i++){
+				if(this.sqlTypes[i] != parameters.get(i).getSqlType()){
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * Binds the parameters to the statement of the SQL. Placeholders of the SQL are counted and binders
+	 * are chosen only when the SQL is bound for the first time or when SQL types of the parameters change.
+	 * Nothing is bound when the SQL has no placeholders.
+	 */
+	public void bind(PreparedStatement pstmt, String sql, List<SQLParameter> parameters) throws SQLException {
+		Binding binding;
+		this.lock.lock();
+		try {
+			binding = this.bindings.get(sql);
+		} finally {
+			this.lock.unlock();
+		}
+		if(binding == null || !binding.matches(parameters)){
+			binding = new Binding(sql, parameters);
+			this.lock.lock();
+			try {
+				this.bindings.put(sql, binding);
+			} finally {
+				this.lock.unlock();
+			}
+		}
+		if(binding.countOfPlaceholders > 0){
+			JdbcUtil.setSqlParameters(pstmt, binding.countOfPlaceholders, binding.binders, parameters);
+		}
+	}
+	
+	/**
+	 * Returns cached statement for the SQL or prepares new one. Statement has to be returned by
+	 * {@link #release(String, PreparedStatement)} or closed by the caller.
+	 */
+	public PreparedStatement acquire(String sql) throws SQLException {
+		PreparedStatement pstmt;
+		this.lock.lock();
+		try {
+			pstmt = this.statements.remove(sql);
+			if(pstmt != null){
+				this.hitCount++;
+			} else {
+				this.missCount++;
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		if(pstmt != null){
+			return pstmt;
+		}
+		return this.connection.prepareStatement(sql);
+	}
+	
+	/**
+	 * Puts the statement back to the cache, the statement is closed when the cache already
+	 * contains statement for the same SQL or when the cache was closed in the meantime.
+	 */
+	public void release(String sql, PreparedStatement pstmt) {
+		boolean cached = false;
+		List<PreparedStatement> toClose = null;
+		try {
+			pstmt.clearParameters();
+			this.lock.lock();
+			try {
+				if(!this.closed && !this.statements.containsKey(sql)){
+					this.statements.put(sql, pstmt);
+					cached = true;
+				}
+				if(!this.evicted.isEmpty()){
+					toClose = new ArrayList<PreparedStatement>(this.evicted);
+					this.evicted.clear();
+				}
+			} finally {
+				this.lock.unlock();
+			}
+		} catch (SQLException ex) {
+			LOGGER.info("Statement could not be returned to the cache: {0}", ex.getMessage());
+		}
+		if(!cached){
+			closeQuietly(pstmt);
+		}
+		if(toClose != null){
+			for(PreparedStatement stmt : toClose){
+				closeQuietly(stmt);
+			}
+		}
+	}
+	
+	/**
+	 * Closes all cached statements, used when the connection is closed or replaced.
+	 */
+	public void close() {
+		List<PreparedStatement> toClose;
+		this.lock.lock();
+		try {
+			this.closed = true;
+			toClose = new ArrayList<PreparedStatement>(this.statements.values());
+			toClose.addAll(this.evicted);
+			this.statements.clear();
+			this.evicted.clear();
+			this.bindings.clear();
+		} finally {
+			this.lock.unlock();
+		}
+		for(PreparedStatement stmt : toClose){
+			closeQuietly(stmt);
+		}
+		LOGGER.ok("Closed statement cache, hits: {0}, misses: {1}, evictions: {2}", getHitCount(), getMissCount(), getEvictionCount());
+	}
+	
+	private void closeQuietly(PreparedStatement pstmt) {
+		try {
+			pstmt.close();
+		} catch (SQLException ex) {
+			LOGGER.info("Closing of cached statement failed: {0}", ex.getMessage());
+		}
+	}
+	
+	public int getSize() {
+		this.lock.lock();
+		try {
+			return this.statements.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+	
+	public long getHitCount() {
+		this.lock.lock();
+		try {
+			return this.hitCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	public long getMissCount() {
+		this.lock.lock();
+		try {
+			return this.missCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	public long getEvictionCount() {
+		this.lock.lock();
+		try {
+			return this.evictionCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+}
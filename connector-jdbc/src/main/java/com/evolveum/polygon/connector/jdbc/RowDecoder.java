@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+
+/**
+ * Decodes rows of one result set to attributes. Names, types and readers of the columns
+ * are resolved once from the metadata of the result set, so decoding of a row does not touch
+ * the metadata again.
+ *
+ */
+public class RowDecoder {
+
+	private final String[] names;
+	private final int[] types;
+	private final int[] indexes;
+	private final ColumnReader[] readers;
+	
+	public RowDecoder(ResultSetMetaData metaData, boolean allNative, String timestampPresentation) throws SQLException {
+		this(metaData, allNative, timestampPresentation, 0, LargeObjectReader.OVERFLOW_SKIP, null);
+	}
+	
+	/**
+	 * Large object columns are read through {@link LargeObjectReader} limited by the configuration.
+	 * 
+	 * @param attributesToGet names of attributes which were requested, large object columns which are not
+	 * contained are not read at all; null means all columns
+	 */
+	public RowDecoder(ResultSetMetaData metaData, AbstractJdbcConfiguration configuration, Collection<String> attributesToGet) throws SQLException {
+		this(metaData, configuration.isAllNative(), configuration.getTimestampPresentation(),
+				configuration.getMaxSizeOfLargeObject(), configuration.getLargeObjectOverflow(), attributesToGet);
+	}
+	
+	private RowDecoder(ResultSetMetaData metaData, boolean allNative, String timestampPresentation, int maxSizeOfLargeObject,
+			String largeObjectOverflow, Collection<String> attributesToGet) throws SQLException {
+		Set<String> namesToGet = null;
+		if(attributesToGet != null){
+			namesToGet = new HashSet<String>();
+			for(String name : attributesToGet){
+				namesToGet.add(name.toLowerCase());
+			}
+		}
+		List<Integer> columns = new ArrayList<Integer>();
+		for(int i = 1; i <= metaData.getColumnCount(); i++){
+			if(namesToGet == null || !JdbcUtil.isLargeObject(metaData.getColumnType(i))
+					|| namesToGet.contains(metaData.getColumnName(i).toLowerCase())){
+				columns.add(i);
+			}
+		}
+		int count = columns.size();
+		this.names = new String[count];
+		this.types = new int[count];
+		this.indexes = new int[count];
+		this.readers = new ColumnReader[count];
+		for(int i = 0; i < count; i++){
+			int index = columns.get(i);
+			int type = metaData.getColumnType(index);
+			this.names[i] = metaData.getColumnName(index).toLowerCase();
+			this.types[i] = type;
+			this.indexes[i] = index;
+			if(JdbcUtil.isLargeObject(type)){
+				this.readers[i] = new LargeObjectReader(JdbcUtil.isBinary(type), maxSizeOfLargeObject, largeObjectOverflow);
+				continue;
+			}
+			int typeOfReader = type;
+			if(!allNative && Types.TIMESTAMP != type && Types.TIME != type && Types.DATE != type
+					&& JdbcUtil.getTypeOfAttribute(type, timestampPresentation).isAssignableFrom(String.class)){
+				typeOfReader = Types.VARCHAR;
+			}
+			this.readers[i] = JdbcUtil.getColumnReader(typeOfReader, timestampPresentation);
+		}
+	}
+	
+	/**
+	 * Decodes the current row of the result set.
+	 */
+	public List<Attribute> decode(ResultSet rs) throws SQLException {
+		List<Attribute> row = new ArrayList<Attribute>(this.readers.length);
+		for(int i = 0; i < this.readers.length; i++){
+			Object value = this.readers[i].read(rs, this.indexes[i]);
+			row.add(AttributeBuilder.build(this.names[i], value));
+		}
+		return row;
+	}
+	
+	/**
+	 * @return lower-cased names of the decoded columns
+	 */
+	public String[] getNames() {
+		return this.names.clone();
+	}
+	
+	/**
+	 * @return SQL types of the decoded columns
+	 */
+	public int[] getTypes() {
+		return this.types.clone();
+	}
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.util.List;
+
+import org.identityconnectors.framework.common.objects.Attribute;
+
+/**
+ * Callback used by the streaming variants of
+ * {@link AbstractJdbcConnector#executeQueryOnTable(String, List, RowHandler)}.
+ * Every row is handed over as soon as it is decoded from the result set.
+ *
+ */
+public interface RowHandler {
+
+	/**
+	 * @param row attributes of one row of the result set
+	 * @return true to continue with the next row, false to stop the query and
+	 * release the statement and the result set
+	 */
+	public boolean handle(List<Attribute> row);
+}
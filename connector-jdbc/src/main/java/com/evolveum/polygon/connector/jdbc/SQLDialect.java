@@ -0,0 +1,462 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.identityconnectors.common.StringUtil;
+
+/**
+ * SQL flavor of the database: quoting of identifiers, paging syntax, limits of bind parameters
+ * and the way how generated keys are returned. Generic dialect produces the same SQL as the builders
+ * produced before dialects were introduced.
+ *
+ */
+public class SQLDialect {
+
+	public static final String GENERIC = "GENERIC";
+	public static final String ORACLE = "ORACLE";
+	public static final String POSTGRESQL = "POSTGRESQL";
+	public static final String MYSQL = "MYSQL";
+	public static final String SQLSERVER = "SQLSERVER";
+	public static final String H2 = "H2";
+	public static final String DB2 = "DB2";
+	
+	public enum Quoting {
+		NONE, DOUBLE, BACK, BRACKETS
+	}
+	
+	private final String name;
+	private final Quoting quoting;
+	
+	protected SQLDialect(String name, Quoting quoting) {
+		this.name = name;
+		this.quoting = quoting;
+	}
+	
+	/**
+	 * @param nameOfDialect one of the dialect names defined by this class (case insensitive), 'MARIADB' is alias of 'MYSQL'
+	 * @param quoting value of 'Name Quoting' configuration property, empty means no quoting
+	 */
+	public static SQLDialect create(String nameOfDialect, String quoting) {
+		Quoting q = parseQuoting(quoting);
+		String name = nameOfDialect == null ? GENERIC : nameOfDialect.trim().toUpperCase();
+		if(name.isEmpty() || GENERIC.equals(name)){
+			return new SQLDialect(GENERIC, q);
+		} else if(ORACLE.equals(name)){
+			return new OracleDialect(q);
+		} else if(POSTGRESQL.equals(name)){
+			return new PostgreSQLDialect(q);
+		} else if(MYSQL.equals(name) || "MARIADB".equals(name)){
+			return new MySQLDialect(q);
+		} else if(SQLSERVER.equals(name)){
+			return new SQLServerDialect(q);
+		} else if(H2.equals(name)){
+			return new H2Dialect(q);
+		} else if(DB2.equals(name)){
+			return new DB2Dialect(q);
+		}
+		throw new IllegalArgumentException("Unknown SQL dialect '" + nameOfDialect + "'.");
+	}
+	
+	/**
+	 * @param productName name returned by {@link java.sql.DatabaseMetaData#getDatabaseProductName()}
+	 * @return name of the matching dialect, {@link #GENERIC} for unknown databases
+	 */
+	public static String detectNameOfDialect(String productName) {
+		if(productName == null){
+			return GENERIC;
+		}
+		String product = productName.toLowerCase();
+		if(product.contains("oracle")){
+			return ORACLE;
+		} else if(product.contains("postgres")){
+			return POSTGRESQL;
+		} else if(product.contains("mysql") || product.contains("mariadb")){
+			return MYSQL;
+		} else if(product.contains("microsoft sql server")){
+			return SQLSERVER;
+		} else if(product.equals("h2")){
+			return H2;
+		} else if(product.startsWith("db2")){
+			return DB2;
+		}
+		return GENERIC;
+	}
+	
+	/**
+	 * @throws IllegalArgumentException for unknown quoting and for 'SINGLE', because single quotes
+	 * delimit string literals and can not be used for names of tables and columns
+	 */
+	public static Quoting parseQuoting(String quoting) {
+		if(StringUtil.isBlank(quoting)){
+			return Quoting.NONE;
+		}
+		if("SINGLE".equalsIgnoreCase(quoting.trim())){
+			throw new IllegalArgumentException("Quoting 'SINGLE' is not supported, single quotes delimit string literals, not names.");
+		}
+		try {
+			return Quoting.valueOf(quoting.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Quoting ''" + quoting + "'' has invalid structure.");
+		}
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public Quoting getQuoting() {
+		return quoting;
+	}
+	
+	/**
+	 * Quotes the identifier by the configured quoting, every part of qualified name ('schema.table')
+	 * is quoted separately. Identifiers which are already quoted are returned unchanged.
+	 */
+	public String quoteIdentifier(String identifier) {
+		if(this.quoting == Quoting.NONE || StringUtil.isBlank(identifier)){
+			return identifier;
+		}
+		String[] parts = identifier.split("\\.", -1);
+		StringBuilder sb = new StringBuilder();
+		for(String part : parts){
+			if(sb.length() != 0){
+				sb.append('.');
+			}
+			sb.append(quotePart(part.trim()));
+		}
+		return sb.toString();
+	}
+	
+	private String quotePart(String part) {
+		char start;
+		char end;
+		switch (this.quoting) {
+			case DOUBLE:
+				start = '"';
+				end = '"';
+				break;
+			case BACK:
+				start = '`';
+				end = '`';
+				break;
+			default:
+				start = '[';
+				end = ']';
+		}
+		if(part.equals("*") || (part.length() > 1 && part.charAt(0) == start && part.charAt(part.length() - 1) == end)){
+			return part;
+		}
+		String escapedEnd = String.valueOf(end) + end;
+		return start + part.replace(String.valueOf(end), escapedEnd) + end;
+	}
+	
+	/**
+	 * @return syntax used to limit count of returned rows
+	 */
+	public PagingStyle getPagingStyle() {
+		return PagingStyle.LIMIT_OFFSET;
+	}
+	
+	/**
+	 * @return true when OFFSET/FETCH can be used only together with ORDER BY clause
+	 */
+	public boolean isOrderByRequiredForPaging() {
+		return false;
+	}
+	
+	/**
+	 * @return max count of bind parameters in one statement
+	 */
+	public int getMaxCountOfParameters() {
+		return InsertSQLBuilder.DEFAULT_MAX_COUNT_OF_PARAMETERS;
+	}
+	
+	/**
+	 * @return max count of rows inserted by one multi-row insert
+	 */
+	public int getMaxCountOfRowsInInsert() {
+		return InsertSQLBuilder.DEFAULT_MAX_COUNT_OF_ROWS;
+	}
+	
+	/**
+	 * @return true when 'INSERT ... VALUES (...), (...)' is supported, otherwise 'INSERT ALL' is used
+	 */
+	public boolean isMultiRowValuesSupported() {
+		return true;
+	}
+	
+	/**
+	 * Prepares insert statement which returns value of the generated key by {@link Statement#getGeneratedKeys()}.
+	 */
+	public PreparedStatement prepareInsertReturningKey(Connection connection, String sql, String keyColumn) throws SQLException {
+		return connection.prepareStatement(sql, new String[]{keyColumn});
+	}
+	
+	/**
+	 * Builds single statement which inserts the row or updates it when row with the same key exists.
+	 * Parameters are bound in the order of the columns. Default implementation builds SQL:2003 MERGE.
+	 * 
+	 * @param nameOfTable quoted name of the table
+	 * @param columns quoted names of all inserted columns, including the key columns
+	 * @param keyColumns quoted names of the columns identifying the row
+	 */
+	public String buildUpsert(String nameOfTable, List<String> columns, List<String> keyColumns) {
+		return buildMergeUsingValues(nameOfTable, columns, keyColumns, "");
+	}
+	
+	protected static String buildMergeUsingValues(String nameOfTable, List<String> columns, List<String> keyColumns, String tableHint) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("MERGE INTO ").append(nameOfTable).append(tableHint).append(" tgt USING ( VALUES ( ")
+			.append(joinParameters(columns.size())).append(" ) ) src ( ").append(join(columns, "", "")).append(" )");
+		appendMergeBody(sb, columns, keyColumns);
+		return sb.toString();
+	}
+	
+	protected static void appendMergeBody(StringBuilder sb, List<String> columns, List<String> keyColumns) {
+		sb.append(" ON ( ");
+		for(int i = 0; i < keyColumns.size(); i++){
+			if(i != 0){
+				sb.append(" AND ");
+			}
+			sb.append("tgt.").append(keyColumns.get(i)).append(" = src.").append(keyColumns.get(i));
+		}
+		sb.append(" )");
+		StringBuilder set = new StringBuilder();
+		for(String column : columns){
+			if(!keyColumns.contains(column)){
+				if(set.length() != 0){
+					set.append(", ");
+				}
+				set.append("tgt.").append(column).append(" = src.").append(column);
+			}
+		}
+		if(set.length() != 0){
+			sb.append(" WHEN MATCHED THEN UPDATE SET ").append(set);
+		}
+		sb.append(" WHEN NOT MATCHED THEN INSERT ( ").append(join(columns, "", "")).append(" ) VALUES ( ")
+			.append(join(columns, "src.", "")).append(" )");
+	}
+	
+	protected static String join(List<String> names, String prefix, String suffix) {
+		StringBuilder sb = new StringBuilder();
+		for(String name : names){
+			if(sb.length() != 0){
+				sb.append(", ");
+			}
+			sb.append(prefix).append(name).append(suffix);
+		}
+		return sb.toString();
+	}
+	
+	protected static String joinParameters(int count) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < count; i++){
+			if(i != 0){
+				sb.append(", ");
+			}
+			sb.append("?");
+		}
+		return sb.toString();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return name + " (quoting " + quoting + ")";
+	}
+	
+	private static class OracleDialect extends SQLDialect {
+		
+		private OracleDialect(Quoting quoting) {
+			super(ORACLE, quoting);
+		}
+		
+		@Override
+		public PagingStyle getPagingStyle() {
+			return PagingStyle.OFFSET_FETCH;
+		}
+		
+		@Override
+		public int getMaxCountOfParameters() {
+			return 65535;
+		}
+		
+		@Override
+		public int getMaxCountOfRowsInInsert() {
+			return 500;
+		}
+		
+		@Override
+		public boolean isMultiRowValuesSupported() {
+			return false;
+		}
+		
+		@Override
+		public String buildUpsert(String nameOfTable, List<String> columns, List<String> keyColumns) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("MERGE INTO ").append(nameOfTable).append(" tgt USING ( SELECT ").append(join(columns, "? AS ", ""))
+				.append(" FROM DUAL ) src");
+			appendMergeBody(sb, columns, keyColumns);
+			return sb.toString();
+		}
+	}
+	
+	private static class PostgreSQLDialect extends SQLDialect {
+		
+		private PostgreSQLDialect(Quoting quoting) {
+			super(POSTGRESQL, quoting);
+		}
+		
+		@Override
+		public String buildUpsert(String nameOfTable, List<String> columns, List<String> keyColumns) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("INSERT INTO ").append(nameOfTable).append(" ( ").append(join(columns, "", "")).append(" ) VALUES ( ")
+				.append(joinParameters(columns.size())).append(" ) ON CONFLICT ( ").append(join(keyColumns, "", "")).append(" ) DO ");
+			StringBuilder set = new StringBuilder();
+			for(String column : columns){
+				if(!keyColumns.contains(column)){
+					if(set.length() != 0){
+						set.append(", ");
+					}
+					set.append(column).append(" = EXCLUDED.").append(column);
+				}
+			}
+			if(set.length() == 0){
+				sb.append("NOTHING");
+			} else {
+				sb.append("UPDATE SET ").append(set);
+			}
+			return sb.toString();
+		}
+		
+		@Override
+		public int getMaxCountOfParameters() {
+			return 32767;
+		}
+	}
+	
+	private static class MySQLDialect extends SQLDialect {
+		
+		private MySQLDialect(Quoting quoting) {
+			super(MYSQL, quoting);
+		}
+		
+		@Override
+		public String buildUpsert(String nameOfTable, List<String> columns, List<String> keyColumns) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("INSERT INTO ").append(nameOfTable).append(" ( ").append(join(columns, "", "")).append(" ) VALUES ( ")
+				.append(joinParameters(columns.size())).append(" ) ON DUPLICATE KEY UPDATE ");
+			StringBuilder set = new StringBuilder();
+			for(String column : columns){
+				if(!keyColumns.contains(column)){
+					if(set.length() != 0){
+						set.append(", ");
+					}
+					// VALUES() is understood by both MySQL and MariaDB
+					set.append(column).append(" = VALUES(").append(column).append(")");
+				}
+			}
+			if(set.length() == 0){
+				set.append(keyColumns.get(0)).append(" = ").append(keyColumns.get(0));
+			}
+			sb.append(set);
+			return sb.toString();
+		}
+		
+		@Override
+		public int getMaxCountOfParameters() {
+			return 65535;
+		}
+		
+		@Override
+		public PreparedStatement prepareInsertReturningKey(Connection connection, String sql, String keyColumn) throws SQLException {
+			return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		}
+	}
+	
+	private static class SQLServerDialect extends SQLDialect {
+		
+		private SQLServerDialect(Quoting quoting) {
+			super(SQLSERVER, quoting);
+		}
+		
+		@Override
+		public PagingStyle getPagingStyle() {
+			return PagingStyle.OFFSET_FETCH;
+		}
+		
+		@Override
+		public boolean isOrderByRequiredForPaging() {
+			return true;
+		}
+		
+		@Override
+		public String buildUpsert(String nameOfTable, List<String> columns, List<String> keyColumns) {
+			// HOLDLOCK makes the MERGE atomic for concurrent upserts of the same key
+			return buildMergeUsingValues(nameOfTable, columns, keyColumns, " WITH (HOLDLOCK)") + ";";
+		}
+		
+		@Override
+		public PreparedStatement prepareInsertReturningKey(Connection connection, String sql, String keyColumn) throws SQLException {
+			return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		}
+	}
+	
+	private static class H2Dialect extends SQLDialect {
+		
+		private H2Dialect(Quoting quoting) {
+			super(H2, quoting);
+		}
+		
+		@Override
+		public String buildUpsert(String nameOfTable, List<String> columns, List<String> keyColumns) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("MERGE INTO ").append(nameOfTable).append(" ( ").append(join(columns, "", "")).append(" ) KEY ( ")
+				.append(join(keyColumns, "", "")).append(" ) VALUES ( ").append(joinParameters(columns.size())).append(" )");
+			return sb.toString();
+		}
+		
+		@Override
+		public int getMaxCountOfParameters() {
+			return 65535;
+		}
+	}
+	
+	private static class DB2Dialect extends SQLDialect {
+		
+		private DB2Dialect(Quoting quoting) {
+			super(DB2, quoting);
+		}
+		
+		@Override
+		public PagingStyle getPagingStyle() {
+			return PagingStyle.OFFSET_FETCH;
+		}
+		
+		@Override
+		public int getMaxCountOfParameters() {
+			return 32767;
+		}
+	}
+}
@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.identityconnectors.common.StringUtil;
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.AbstractFilterTranslator;
+import org.identityconnectors.framework.common.objects.filter.AttributeFilter;
+import org.identityconnectors.framework.common.objects.filter.ContainsFilter;
+import org.identityconnectors.framework.common.objects.filter.EndsWithFilter;
+import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
+import org.identityconnectors.framework.common.objects.filter.EqualsIgnoreCaseFilter;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.GreaterThanFilter;
+import org.identityconnectors.framework.common.objects.filter.GreaterThanOrEqualFilter;
+import org.identityconnectors.framework.common.objects.filter.LessThanFilter;
+import org.identityconnectors.framework.common.objects.filter.LessThanOrEqualFilter;
+import org.identityconnectors.framework.common.objects.filter.StartsWithFilter;
+
+/**
+ * Translates ConnId filters to condition of the WHERE clause with bound parameters, the result
+ * can be set to the select by {@link SelectSQLBuilder#setWhereClause(SQLRequest)}.
+ * Filters on attributes which are not columns of the table are not translated, so they have to be
+ * evaluated by the caller (ConnId framework does it for the results of the search).
+ *
+ */
+public class SQLFilterTranslator extends AbstractFilterTranslator<SQLRequest> {
+
+	private static final char LIKE_ESCAPE = '!';
+	
+	private final SQLDialect dialect;
+	private final TableMetadata table;
+	private final String keyNameOfTable;
+	private final String nameOfNameColumn;
+	
+	/**
+	 * @param table metadata of the table, see {@link AbstractJdbcConnector#getTableMetadata(String, String)}
+	 * @param keyNameOfTable column of {@link Uid}
+	 * @param nameOfNameColumn column of {@link Name}, can be null
+	 */
+	public SQLFilterTranslator(SQLDialect dialect, TableMetadata table, String keyNameOfTable, String nameOfNameColumn) {
+		if(dialect == null || table == null){
+			throw new IllegalArgumentException("SQL dialect and metadata of the table can not be null.");
+		}
+		if(StringUtil.isBlank(keyNameOfTable)){
+			throw new IllegalArgumentException("Key name of table can not be empty.");
+		}
+		this.dialect = dialect;
+		this.table = table;
+		this.keyNameOfTable = keyNameOfTable;
+		this.nameOfNameColumn = nameOfNameColumn;
+	}
+	
+	/**
+	 * @return condition of the WHERE clause (without 'WHERE'), or null when the filter is null
+	 * or when it can not be translated
+	 */
+	public SQLRequest translateToWhereClause(Filter filter) {
+		if(filter == null){
+			return null;
+		}
+		SQLRequest where = null;
+		for(SQLRequest condition : translate(filter)){
+			where = where == null ? condition : createOrExpression(where, condition);
+		}
+		return where;
+	}
+	
+	@Override
+	protected SQLRequest createAndExpression(SQLRequest leftExpression, SQLRequest rightExpression) {
+		return combine(leftExpression, "AND", rightExpression);
+	}
+	
+	@Override
+	protected SQLRequest createOrExpression(SQLRequest leftExpression, SQLRequest rightExpression) {
+		return combine(leftExpression, "OR", rightExpression);
+	}
+	
+	@Override
+	protected SQLRequest createEqualsExpression(EqualsFilter filter, boolean not) {
+		ColumnMetadata column = getColumn(filter);
+		if(column == null){
+			return null;
+		}
+		List<Object> values = filter.getAttribute().getValue();
+		if(values == null || values.isEmpty() || (values.size() == 1 && values.get(0) == null)){
+			String sql = quote(column) + (not ? " IS NOT NULL" : " IS NULL");
+			return new SQLRequest(sql, new ArrayList<SQLParameter>());
+		}
+		if(values.size() != 1){
+			return null;
+		}
+		return comparison(column, "=", column.getSqlType(), values.get(0), not);
+	}
+	
+	@Override
+	protected SQLRequest createEqualsIgnoreCaseExpression(EqualsIgnoreCaseFilter filter, boolean not) {
+		ColumnMetadata column = getColumn(filter);
+		if(column == null || filter.getValue() == null){
+			return null;
+		}
+		String sql = "LOWER(" + quote(column) + ") = LOWER(?)";
+		return create(column, sql, Types.VARCHAR, filter.getValue(), not);
+	}
+	
+	@Override
+	protected SQLRequest createStartsWithExpression(StartsWithFilter filter, boolean not) {
+		return like(filter, "", filter.getValue(), "%", not);
+	}
+	
+	@Override
+	protected SQLRequest createEndsWithExpression(EndsWithFilter filter, boolean not) {
+		return like(filter, "%", filter.getValue(), "", not);
+	}
+	
+	@Override
+	protected SQLRequest createContainsExpression(ContainsFilter filter, boolean not) {
+		return like(filter, "%", filter.getValue(), "%", not);
+	}
+	
+	@Override
+	protected SQLRequest createGreaterThanExpression(GreaterThanFilter filter, boolean not) {
+		return comparison(filter, ">", not);
+	}
+	
+	@Override
+	protected SQLRequest createGreaterThanOrEqualExpression(GreaterThanOrEqualFilter filter, boolean not) {
+		return comparison(filter, ">=", not);
+	}
+	
+	@Override
+	protected SQLRequest createLessThanExpression(LessThanFilter filter, boolean not) {
+		return comparison(filter, "<", not);
+	}
+	
+	@Override
+	protected SQLRequest createLessThanOrEqualExpression(LessThanOrEqualFilter filter, boolean not) {
+		return comparison(filter, "<=", not);
+	}
+	
+	/**
+	 * Escapes wildcards of LIKE, the pattern has to be used with "ESCAPE '!'".
+	 */
+	public static String escapeLikePattern(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 8);
+		for(int i = 0; i < value.length(); i++){
+			char ch = value.charAt(i);
+			if(ch == LIKE_ESCAPE || ch == '%' || ch == '_'){
+				sb.append(LIKE_ESCAPE);
+			}
+			sb.append(ch);
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * LIKE is translated only for character columns, other columns are filtered by the caller.
+	 */
+	private SQLRequest like(AttributeFilter filter, String prefix, String value, String suffix, boolean not) {
+		ColumnMetadata column = getColumn(filter);
+		if(column == null || value == null || !isCharacter(column.getSqlType())){
+			return null;
+		}
+		String sql = quote(column) + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "'";
+		return create(column, sql, Types.VARCHAR, prefix + escapeLikePattern(value) + suffix, not);
+	}
+	
+	private SQLRequest comparison(AttributeFilter filter, String operator, boolean not) {
+		ColumnMetadata column = getColumn(filter);
+		if(column == null){
+			return null;
+		}
+		List<Object> values = filter.getAttribute().getValue();
+		if(values == null || values.size() != 1 || values.get(0) == null){
+			return null;
+		}
+		return comparison(column, operator, column.getSqlType(), values.get(0), not);
+	}
+	
+	private SQLRequest comparison(ColumnMetadata column, String operator, int sqlType, Object value, boolean not) {
+		return create(column, quote(column) + " " + operator + " ?", sqlType, toNumber(column, sqlType, value), not);
+	}
+	
+	/**
+	 * Converts string value (e.g. of {@link Uid}) compared with numeric column, so invalid value is reported
+	 * as invalid attribute value and not as failure of the binding.
+	 */
+	private static Object toNumber(ColumnMetadata column, int sqlType, Object value) {
+		if(!(value instanceof String)){
+			return value;
+		}
+		String number = ((String)value).trim();
+		try {
+			switch(sqlType){
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return Integer.valueOf(number);
+			case Types.BIGINT:
+				return Long.valueOf(number);
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				return new BigDecimal(number);
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return Double.valueOf(number);
+			default:
+				return value;
+			}
+		} catch (NumberFormatException e) {
+			throw new InvalidAttributeValueException("Value '" + value + "' is not valid for numeric column "
+					+ column.getName() + ".", e);
+		}
+	}
+	
+	private static boolean isCharacter(int sqlType) {
+		switch(sqlType){
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.LONGVARCHAR:
+		case Types.CLOB:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+		case Types.LONGNVARCHAR:
+		case Types.NCLOB:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * Negated condition matches also rows with NULL in the column, i.e. objects without the attribute.
+	 */
+	private SQLRequest create(ColumnMetadata column, String condition, int sqlType, Object value, boolean not) {
+		List<SQLParameter> parameters = new ArrayList<SQLParameter>();
+		parameters.add(new SQLParameter(sqlType, value, column.getName()));
+		String sql = condition;
+		if(not){
+			sql = "( " + quote(column) + " IS NULL OR NOT ( " + condition + " ) )";
+		}
+		return new SQLRequest(sql, parameters);
+	}
+	
+	private SQLRequest combine(SQLRequest left, String operator, SQLRequest right) {
+		List<SQLParameter> parameters = new ArrayList<SQLParameter>(left.getParameters());
+		parameters.addAll(right.getParameters());
+		String sql = "( " + left.getSql() + " " + operator + " " + right.getSql() + " )";
+		return new SQLRequest(sql, parameters);
+	}
+	
+	private ColumnMetadata getColumn(AttributeFilter filter) {
+		Attribute attribute = filter.getAttribute();
+		String name = attribute.getName();
+		if(Uid.NAME.equals(name)){
+			name = this.keyNameOfTable;
+		} else if(Name.NAME.equals(name)){
+			if(this.nameOfNameColumn == null){
+				return null;
+			}
+			name = this.nameOfNameColumn;
+		}
+		return this.table.getColumn(name);
+	}
+	
+	private String quote(ColumnMetadata column) {
+		return this.dialect.quoteIdentifier(column.getName());
+	}
+}
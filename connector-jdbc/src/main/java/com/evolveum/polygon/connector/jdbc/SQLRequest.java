@@ -25,6 +25,8 @@ public class SQLRequest {
 
 	private String sql;
 	private List<SQLParameter> parameters;
+	private int countOfPlaceholders = -1;
+	private ParameterBinder[] parameterBinders;
 	
 	/**
 	 * @return the parameters
@@ -40,6 +42,28 @@ public class SQLRequest {
 		return sql;
 	}
 	
+	/**
+	 * @return count of '?' placeholders in the sql, counted once per request
+	 */
+	public int getCountOfPlaceholders() {
+		if(countOfPlaceholders == -1){
+			countOfPlaceholders = JdbcUtil.countChar(sql, '?');
+		}
+		return countOfPlaceholders;
+	}
+	
+	/**
+	 * @return binders for the parameters chosen by their SQL types, computed once per request
+	 */
+	public ParameterBinder[] getParameterBinders() {
+		ParameterBinder[] binders = parameterBinders;
+		if(binders == null || binders.length != parameters.size()){
+			binders = JdbcUtil.getParameterBinders(parameters);
+			parameterBinders = binders;
+		}
+		return binders;
+	}
+	
 	/**
 	 * 
 	 */
@@ -15,7 +15,11 @@
  */
 package com.evolveum.polygon.connector.jdbc;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.framework.common.objects.filter.Filter;
@@ -36,34 +40,116 @@ public class SelectSQLBuilder {
 	private String nameForGroupByClause = "";
 	private String havingClause = "";
 	private String nameOfAttributeForOrder = "";
+	private int offset = 0;
+	private PagingStyle pagingStyle = PagingStyle.LIMIT_OFFSET;
+	private String keysetColumn = null;
+	private SQLParameter keysetValue = null;
+	private List<SQLParameter> whereParameters = new ArrayList<SQLParameter>();
+	private final SQLDialect dialect;
+	
+	public SelectSQLBuilder() {
+		this(SQLDialect.create(SQLDialect.GENERIC, null));
+	}
+	
+	/**
+	 * @param dialect dialect used for quoting of the names of tables and columns and for the paging syntax
+	 */
+	public SelectSQLBuilder(SQLDialect dialect) {
+		if(dialect == null){
+			throw new IllegalArgumentException("SQL dialect can not be null.");
+		}
+		this.dialect = dialect;
+		this.pagingStyle = dialect.getPagingStyle();
+	}
 	
 	public String build(){
 		if(StringUtil.isBlank(this.nameOfTable)){
 			throw new IllegalArgumentException("Variable nameOfTable can not be empty.");
 		}
+		if(this.offset > 0 && this.pagingStyle == PagingStyle.TOP){
+			throw new IllegalArgumentException("Offset is not supported by paging style " + this.pagingStyle + ".");
+		}
 		
 		StringBuilder sb = new StringBuilder();
-		sb.append(" SELECT ").append(this.topClause).append(" ");
+		sb.append(" SELECT ");
+		if(this.countForLimitClause != -1 && this.pagingStyle == PagingStyle.TOP){
+			sb.append("TOP ").append(this.countForLimitClause).append(" ");
+		}
+		sb.append(this.topClause).append(" ");
 		if(StringUtil.isBlank(this.namesOfColumn)){
 			sb.append("*");
 		} else {
 			sb.append(this.namesOfColumn);
 		}
 		
-		sb.append(this.intoClause).append(" FROM ").append(this.nameOfTable).append(" ").append(this.joinClause).append(" ").append(this.whereClause);
-		if(this.countForLimitClause != -1){
-			sb.append(" LIMIT ").append(this.countForLimitClause);
-		}
+		sb.append(this.intoClause).append(" FROM ").append(this.nameOfTable).append(" ").append(this.joinClause).append(" ").append(buildWhereClause());
 		if(!StringUtil.isBlank(this.nameForGroupByClause)){
 			sb.append(" GROUP BY ").append(this.nameForGroupByClause);
 		}
 		sb.append(" ").append(this.havingClause);
-		if(!StringUtil.isBlank(this.nameOfAttributeForOrder)){
+		if(this.keysetColumn != null){
+			if(!StringUtil.isBlank(this.nameOfAttributeForOrder)){
+				throw new IllegalArgumentException("Keyset cursor can not be combined with other ORDER BY clause.");
+			}
+			sb.append(" ORDER BY ").append(this.dialect.quoteIdentifier(this.keysetColumn)).append(" ASC");
+		} else if(!StringUtil.isBlank(this.nameOfAttributeForOrder)){
 			sb.append(" ORDER BY ").append(this.nameOfAttributeForOrder);
+		} else if(this.pagingStyle == PagingStyle.OFFSET_FETCH && this.dialect.isOrderByRequiredForPaging()
+				&& (this.offset > 0 || this.countForLimitClause != -1)){
+			sb.append(" ORDER BY (SELECT NULL)");
+		}
+		if(this.pagingStyle == PagingStyle.LIMIT_OFFSET){
+			if(this.countForLimitClause != -1){
+				sb.append(" LIMIT ").append(this.countForLimitClause);
+			}
+			if(this.offset > 0){
+				sb.append(" OFFSET ").append(this.offset);
+			}
+		} else if(this.pagingStyle == PagingStyle.OFFSET_FETCH){
+			if(this.offset > 0 || this.countForLimitClause != -1){
+				sb.append(" OFFSET ").append(this.offset).append(" ROWS");
+			}
+			if(this.countForLimitClause != -1){
+				sb.append(" FETCH NEXT ").append(this.countForLimitClause).append(" ROWS ONLY");
+			}
 		}
 		return sb.toString();
 	}
 	
+	/**
+	 * Builds the select together with the parameters bound by the keyset cursor.
+	 */
+	public SQLRequest buildRequest(){
+		return new SQLRequest(build(), getParameters());
+	}
+	
+	/**
+	 * @return parameters which have to be bound to the SQL returned by {@link #build()}
+	 */
+	public List<SQLParameter> getParameters(){
+		List<SQLParameter> parameters = new ArrayList<SQLParameter>(this.whereParameters);
+		if(this.keysetColumn != null && this.keysetValue != null){
+			parameters.add(this.keysetValue);
+		}
+		return parameters;
+	}
+	
+	private String buildWhereClause(){
+		if(this.keysetColumn == null || this.keysetValue == null){
+			return this.whereClause;
+		}
+		StringBuilder sb = new StringBuilder(" WHERE ");
+		String condition = this.whereClause == null ? "" : this.whereClause.trim();
+		if(condition.regionMatches(true, 0, "WHERE", 0, 5)){
+			condition = condition.substring(5).trim();
+		}
+		if(!condition.isEmpty()){
+			sb.append("( ").append(condition).append(" ) AND ");
+		}
+		sb.append(this.dialect.quoteIdentifier(this.keysetColumn)).append(" > ?");
+		return sb.toString();
+	}
+	
 	/**
 	 * @param countForLimitClause the countForLimitClause to set
 	 */
@@ -71,6 +157,48 @@ public class SelectSQLBuilder {
 		this.countForLimitClause = countForLimitClause;
 	}
 	
+	/**
+	 * @param pageSize max count of returned rows, -1 for all rows
+	 */
+	public void setPageSize(int pageSize) {
+		this.countForLimitClause = pageSize;
+	}
+	
+	/**
+	 * @param offset count of skipped rows, prefer {@link #setKeysetCursor(String, SQLParameter)} for deep pages
+	 */
+	public void setOffset(int offset) {
+		if(offset < 0){
+			throw new IllegalArgumentException("Offset can not be negative.");
+		}
+		this.offset = offset;
+	}
+	
+	/**
+	 * @param pagingStyle syntax of the clause limiting count of returned rows
+	 */
+	public void setPagingStyle(PagingStyle pagingStyle) {
+		if(pagingStyle == null){
+			throw new IllegalArgumentException("Paging style can not be null.");
+		}
+		this.pagingStyle = pagingStyle;
+	}
+	
+	/**
+	 * Sets keyset (seek) cursor, the select returns only rows with key greater than the last key
+	 * of the previous page, ordered by the key. Cost of a page does not depend on its position.
+	 * 
+	 * @param keyColumn name of unique column used for paging
+	 * @param lastValueOfKey key of the last row of the previous page, null for the first page
+	 */
+	public void setKeysetCursor(String keyColumn, SQLParameter lastValueOfKey) {
+		if(StringUtil.isBlank(keyColumn)){
+			throw new IllegalArgumentException("Key column of keyset cursor can not be empty.");
+		}
+		this.keysetColumn = keyColumn;
+		this.keysetValue = lastValueOfKey;
+	}
+	
 	/**
 	 * @param topClause the topClause to set
 	 */
@@ -88,11 +216,40 @@ public class SelectSQLBuilder {
 			if(sb.length() != 0){
 				sb.append(", ");
 			}
-			sb.append(name);
+			sb.append(this.dialect.quoteIdentifier(name));
 		}
 		this.namesOfColumn = sb.toString();
 	}
 	
+	/**
+	 * Replaces the column list by the explicit list of the columns to get, so only the needed
+	 * columns are transferred and decoded.
+	 * 
+	 * @param namesOfColumns names of the columns to get, null keeps the current column list
+	 * @param namesOfAlwaysIncludedColumns columns which are selected always, e.g. key and name of the object
+	 */
+	public void setNamesOfColumnsToGet(Collection<String> namesOfColumns, String... namesOfAlwaysIncludedColumns){
+		if(namesOfColumns == null){
+			return;
+		}
+		Set<String> lowerCaseNames = new HashSet<String>();
+		List<String> names = new ArrayList<String>();
+		for(String name : namesOfAlwaysIncludedColumns){
+			if(!StringUtil.isBlank(name) && lowerCaseNames.add(name.toLowerCase())){
+				names.add(name);
+			}
+		}
+		for(String name : namesOfColumns){
+			if(!StringUtil.isBlank(name) && lowerCaseNames.add(name.toLowerCase())){
+				names.add(name);
+			}
+		}
+		if(names.isEmpty()){
+			throw new IllegalArgumentException("List of columns to get can not be empty.");
+		}
+		setAllNamesOfColumns(names.toArray(new String[names.size()]));
+	}
+	
 	public void addNameOfColumnWithAlias(String name, String alias){
 		addNameOfColumnWithFunctionAndAlias("", name, alias);
 	}
@@ -111,10 +268,10 @@ public class SelectSQLBuilder {
 			sb.append(this.namesOfColumn).append(", ");
 		}
 		if(!StringUtil.isBlank(function)){
-			sb.append(function).append("(").append(name).append(")");
+			sb.append(function).append("(").append(this.dialect.quoteIdentifier(name)).append(")");
 			
 		} else {
-			sb.append(name);
+			sb.append(this.dialect.quoteIdentifier(name));
 		}
 		
 		if(!StringUtil.isBlank(alias)){
@@ -132,9 +289,13 @@ public class SelectSQLBuilder {
 	}
 	
 	/**
-	 * @param nameOfTable the nameOfTable to set
+	 * @param namesOfTables single name of table, which is quoted like in {@link #addNameOfTable(String)},
+	 * or list of tables with aliases, which is used as it is
 	 */
 	public void setALLNamesOfTables(String namesOfTables) {
+		if(namesOfTables != null && !namesOfTables.trim().matches(".*[\\s,].*")){
+			namesOfTables = this.dialect.quoteIdentifier(namesOfTables.trim());
+		}
 		this.nameOfTable = namesOfTables;
 	}
 	
@@ -143,7 +304,7 @@ public class SelectSQLBuilder {
 		if(!StringUtil.isBlank(this.nameOfTable)){
 			sb.append(this.nameOfTable).append(", ");
 		}
-		sb.append(name);
+		sb.append(this.dialect.quoteIdentifier(name));
 		
 		if(!StringUtil.isBlank(alias)){
 			sb.append(" AS ").append(alias);
@@ -167,6 +328,21 @@ public class SelectSQLBuilder {
 	 */
 	public void setWhereClause(String whereClause) {
 		this.whereClause = whereClause;
+		this.whereParameters = new ArrayList<SQLParameter>();
+	}
+	
+	/**
+	 * Sets condition with bound parameters, e.g. translated by {@link SQLFilterTranslator}.
+	 * 
+	 * @param condition condition without 'WHERE', null removes the WHERE clause
+	 */
+	public void setWhereClause(SQLRequest condition) {
+		if(condition == null){
+			setWhereClause("");
+			return;
+		}
+		this.whereClause = " WHERE " + condition.getSql();
+		this.whereParameters = new ArrayList<SQLParameter>(condition.getParameters());
 	}
 	
 	/**
@@ -207,10 +383,10 @@ public class SelectSQLBuilder {
 			sb.append(this.nameOfAttributeForOrder).append(", ");
 		}
 		if(!StringUtil.isBlank(function)){
-			sb.append(function).append("(").append(name).append(")");
+			sb.append(function).append("(").append(this.dialect.quoteIdentifier(name)).append(")");
 			
 		} else {
-			sb.append(name);
+			sb.append(this.dialect.quoteIdentifier(name));
 		}
 		
 		if(ascending){
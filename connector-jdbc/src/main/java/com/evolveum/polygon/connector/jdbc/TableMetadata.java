@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the columns of one table, cached by {@link TableMetadataCache}.
+ *
+ */
+public class TableMetadata {
+
+	private final String nameOfTable;
+	private final List<ColumnMetadata> columns;
+	private final Map<String, Integer> sqlTypes;
+	private final long created = System.currentTimeMillis();
+	
+	public TableMetadata(String nameOfTable, List<ColumnMetadata> columns) {
+		this.nameOfTable = nameOfTable;
+		this.columns = Collections.unmodifiableList(new ArrayList<ColumnMetadata>(columns));
+		Map<String, Integer> types = new HashMap<String, Integer>();
+		for(ColumnMetadata column : columns){
+			types.put(column.getName().toLowerCase(), column.getSqlType());
+		}
+		this.sqlTypes = Collections.unmodifiableMap(types);
+	}
+	
+	public String getNameOfTable() {
+		return nameOfTable;
+	}
+	
+	/**
+	 * @return columns in the order of the table definition
+	 */
+	public List<ColumnMetadata> getColumns() {
+		return columns;
+	}
+	
+	/**
+	 * @return SQL types of the columns by lower-cased name of the column
+	 */
+	public Map<String, Integer> getSqlTypes() {
+		return sqlTypes;
+	}
+	
+	/**
+	 * @return column with the name (case insensitive), or null
+	 */
+	public ColumnMetadata getColumn(String name) {
+		for(ColumnMetadata column : columns){
+			if(column.getName().equalsIgnoreCase(name)){
+				return column;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return time of creation of the snapshot in milliseconds
+	 */
+	public long getCreated() {
+		return created;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.identityconnectors.common.logging.Log;
+
+/**
+ * Cache of {@link TableMetadata} snapshots by name of table. Snapshots older than the time to live
+ * are loaded again. The cache is shared by connector instances with the same configuration.
+ *
+ */
+public class TableMetadataCache {
+
+	private static final Log LOGGER = Log.getLog(TableMetadataCache.class);
+	
+	/**
+	 * Reads metadata of the table from the database.
+	 */
+	public interface Loader {
+		
+		public TableMetadata load(String nameOfTable) throws SQLException;
+	}
+	
+	private final long timeToLive;
+	private final Map<String, TableMetadata> tables = new ConcurrentHashMap<String, TableMetadata>();
+	
+	/**
+	 * @param timeToLive time to live of the snapshots in milliseconds, 0 disables caching
+	 */
+	public TableMetadataCache(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+	
+	/**
+	 * Returns cached snapshot of the table, or loads it when it is not cached or it is expired.
+	 * Loading is not done under any lock, concurrent loads of the same table are harmless.
+	 */
+	public TableMetadata get(String nameOfTable, Loader loader) throws SQLException {
+		String key = nameOfTable.toLowerCase();
+		TableMetadata table = this.tables.get(key);
+		if(table != null && System.currentTimeMillis() - table.getCreated() < this.timeToLive){
+			return table;
+		}
+		table = loader.load(nameOfTable);
+		if(this.timeToLive > 0){
+			this.tables.put(key, table);
+		}
+		LOGGER.ok("Loaded metadata of table {0}: {1}", nameOfTable, table.getColumns());
+		return table;
+	}
+	
+	public void invalidate(String nameOfTable) {
+		this.tables.remove(nameOfTable.toLowerCase());
+	}
+	
+	public void invalidateAll() {
+		this.tables.clear();
+	}
+}
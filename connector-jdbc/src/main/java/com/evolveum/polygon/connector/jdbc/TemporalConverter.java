@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Conversion of SQL date and time values from and to the presentations used by the connector
+ * ('unixEpoch' and 'string'). Formatters are immutable and thread-safe, so they are created only once,
+ * and the format of the input string is recognized from its shape instead of by catching parse exceptions.
+ *
+ */
+public final class TemporalConverter {
+
+	public static final String PRESENTATION_UNIX_EPOCH = "unixEpoch";
+	public static final String PRESENTATION_STRING = "string";
+
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSSXXX");
+	private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+	private static final DateTimeFormatter TIMESTAMP_PARSER = new DateTimeFormatterBuilder()
+			.append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+			.optionalStart().appendOffset("+HH:MM:ss", "Z").optionalEnd()
+			.toFormatter();
+	// hours, minutes and seconds do not have to be padded, e.g. '1:2:3'
+	private static final DateTimeFormatter TIME_PARSER = new DateTimeFormatterBuilder()
+			.appendValue(ChronoField.HOUR_OF_DAY, 1, 2, SignStyle.NOT_NEGATIVE)
+			.appendLiteral(':')
+			.appendValue(ChronoField.MINUTE_OF_HOUR, 1, 2, SignStyle.NOT_NEGATIVE)
+			.optionalStart()
+			.appendLiteral(':')
+			.appendValue(ChronoField.SECOND_OF_MINUTE, 1, 2, SignStyle.NOT_NEGATIVE)
+			.optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+			.optionalEnd()
+			.optionalStart().appendOffset("+HH:MM:ss", "Z").optionalEnd()
+			.toFormatter();
+
+	private TemporalConverter() {
+	}
+
+	public static boolean isUnixEpoch(String timestampPresentation) {
+		return PRESENTATION_UNIX_EPOCH.equalsIgnoreCase(timestampPresentation);
+	}
+
+	public static boolean isString(String timestampPresentation) {
+		return PRESENTATION_STRING.equalsIgnoreCase(timestampPresentation);
+	}
+
+	public static boolean isValidPresentation(String timestampPresentation) {
+		return isUnixEpoch(timestampPresentation) || isString(timestampPresentation);
+	}
+
+	/**
+	 * @return date formatted as 'yyyy-MM-dd'
+	 */
+	public static String format(Date date) {
+		return DATE_FORMAT.format(date.toLocalDate());
+	}
+
+	/**
+	 * @return time formatted as 'HH:mm:ss.SSSXXX' with offset of the default time zone
+	 */
+	public static String format(Time time) {
+		return TIME_FORMAT.format(Instant.ofEpochMilli(time.getTime()).atZone(ZoneId.systemDefault()));
+	}
+
+	/**
+	 * @return timestamp formatted as 'yyyy-MM-dd'T'HH:mm:ss.SSSXXX' with offset of the default time zone
+	 */
+	public static String format(Timestamp timestamp) {
+		return TIMESTAMP_FORMAT.format(timestamp.toLocalDateTime().atZone(ZoneId.systemDefault()));
+	}
+
+	/**
+	 * Parses timestamp in JDBC escape format 'yyyy-[m]m-[d]d hh:mm:ss[.f...]' or in ISO format
+	 * 'yyyy-MM-ddTHH:mm:ss[.f...][offset]'. Value without offset is in the default time zone.
+	 */
+	public static Timestamp parseTimestamp(String value) {
+		int separator = indexOfDateTimeSeparator(value);
+		try {
+			if(separator != -1 && value.charAt(separator) == 'T'){
+				TemporalAccessor parsed = TIMESTAMP_PARSER.parseBest(value, OffsetDateTime::from, LocalDateTime::from);
+				if(parsed instanceof OffsetDateTime){
+					return Timestamp.from(((OffsetDateTime)parsed).toInstant());
+				}
+				return Timestamp.valueOf((LocalDateTime)parsed);
+			}
+			return Timestamp.valueOf(value);
+		} catch (DateTimeParseException | IllegalArgumentException e) {
+			throw new IllegalArgumentException("It is not possible to parse Timestamp from input string.", e);
+		}
+	}
+
+	/**
+	 * Parses date in format 'yyyy-[m]m-[d]d', time part of timestamp in the input is ignored.
+	 */
+	public static Date parseDate(String value) {
+		int separator = indexOfDateTimeSeparator(value);
+		String date = separator == -1 ? value : value.substring(0, separator);
+		try {
+			return Date.valueOf(date);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("It is not possible to parse Date from input string.", e);
+		}
+	}
+
+	/**
+	 * Parses time in format 'H:m[:s[.f...]][offset]', hours, minutes and seconds do not have to be padded,
+	 * time with offset is converted to the default time zone.
+	 */
+	public static Time parseTime(String value) {
+		try {
+			if(value.length() == 8){
+				return Time.valueOf(value);
+			}
+			TemporalAccessor parsed = TIME_PARSER.parseBest(value, OffsetTime::from, LocalTime::from);
+			if(parsed instanceof OffsetTime){
+				return new Time(((OffsetTime)parsed).atDate(LocalDate.EPOCH).toInstant().toEpochMilli());
+			}
+			return new Time(((LocalTime)parsed).atDate(LocalDate.EPOCH).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+		} catch (DateTimeParseException | IllegalArgumentException e) {
+			throw new IllegalArgumentException("It is not possible to parse Time from input string.", e);
+		}
+	}
+
+	private static int indexOfDateTimeSeparator(String value) {
+		for(int i = 0; i < value.length(); i++){
+			char ch = value.charAt(i);
+			if(ch == 'T' || ch == ' '){
+				return i;
+			}
+		}
+		return -1;
+	}
+}
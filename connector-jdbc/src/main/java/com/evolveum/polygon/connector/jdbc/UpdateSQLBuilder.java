@@ -33,6 +33,22 @@ public class UpdateSQLBuilder implements InsertOrUpdateSQL {
 	private String bodyOfSQLRequest = "";
 	private String whereClause = "";
 	private List<SQLParameter> parameters = null;
+	private SQLParameter uidParameter = null;
+	private final SQLDialect dialect;
+	
+	public UpdateSQLBuilder() {
+		this(SQLDialect.create(SQLDialect.GENERIC, null));
+	}
+	
+	/**
+	 * @param dialect dialect used for quoting of the names of the table and the columns
+	 */
+	public UpdateSQLBuilder(SQLDialect dialect) {
+		if(dialect == null){
+			throw new IllegalArgumentException("SQL dialect can not be null.");
+		}
+		this.dialect = dialect;
+	}
 	
 	@Override
 	public SQLRequest build(){
@@ -50,10 +66,21 @@ public class UpdateSQLBuilder implements InsertOrUpdateSQL {
 		}
 		
 		StringBuilder sb = new StringBuilder();
-		sb.append("UPDATE ").append(" ").append(this.nameOfTable).append(" SET ").append(this.bodyOfSQLRequest).append(" ").append(this.whereClause); 
-		return new SQLRequest(sb.toString(), this.parameters);
+		sb.append("UPDATE ").append(" ").append(this.dialect.quoteIdentifier(this.nameOfTable)).append(" SET ").append(this.bodyOfSQLRequest).append(" ").append(this.whereClause); 
+		List<SQLParameter> allParameters = new ArrayList<SQLParameter>(this.parameters);
+		if(this.uidParameter != null){
+			allParameters.add(this.uidParameter);
+		}
+		return new SQLRequest(sb.toString(), allParameters);
 	}
 	
+	/**
+	 * Builds the update with the value of uid written directly to the SQL text.
+	 * 
+	 * @deprecated every uid produces different statement and the value is not escaped,
+	 * use {@link #build(String, List, Uid, String, int)} instead
+	 */
+	@Deprecated
 	public SQLRequest build(String nameOfTable, List<SQLParameter> parameters, Uid userUid, String nameOfUidParameter){
 		setNameOfTable(nameOfTable);
 		setNameAndValueOfcolumn(parameters);
@@ -62,13 +89,40 @@ public class UpdateSQLBuilder implements InsertOrUpdateSQL {
 		return build();
 	}
 	
+	public SQLRequest build(String nameOfTable, List<SQLParameter> parameters, Uid userUid, String nameOfUidParameter, int sqlTypeOfUid){
+		setNameOfTable(nameOfTable);
+		setNameAndValueOfcolumn(parameters);
+		setWhereClause(userUid, nameOfUidParameter, sqlTypeOfUid);
+		
+		return build();
+	}
+	
 	/**
-	 * @param whereClause the whereClause to set
+	 * Sets 'WHERE uid = value' with the value of uid written directly to the SQL text.
+	 * 
+	 * @deprecated every uid produces different statement and the value is not escaped,
+	 * use {@link #setWhereClause(Uid, String, int)} instead
 	 */
+	@Deprecated
 	public void setWhereClause(Uid userUid, String nameOfUidParameter) {
 		StringBuilder sb = new StringBuilder();
-		sb.append(" WHERE ").append(nameOfUidParameter).append(" = ").append(userUid.getUidValue());
+		sb.append(" WHERE ").append(this.dialect.quoteIdentifier(nameOfUidParameter)).append(" = ").append(userUid.getUidValue());
+		this.whereClause = sb.toString();
+		this.uidParameter = null;
+	}
+	
+	/**
+	 * Sets 'WHERE uid = ?', the value of uid is bound as parameter of the SQL type of the uid column,
+	 * so the SQL text is the same for all objects.
+	 */
+	public void setWhereClause(Uid userUid, String nameOfUidParameter, int sqlTypeOfUid) {
+		if(userUid == null){
+			throw new IllegalArgumentException("Uid can not be null.");
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(" WHERE ").append(this.dialect.quoteIdentifier(nameOfUidParameter)).append(" = ?");
 		this.whereClause = sb.toString();
+		this.uidParameter = new SQLParameter(sqlTypeOfUid, userUid.getUidValue(), nameOfUidParameter);
 	}
 	
 	/**
@@ -107,7 +161,7 @@ public class UpdateSQLBuilder implements InsertOrUpdateSQL {
 			sb.append(this.bodyOfSQLRequest).append(", ");
 		}
 		
-		sb.append(name).append(" = ").append("?");
+		sb.append(this.dialect.quoteIdentifier(name)).append(" = ").append("?");
 		this.bodyOfSQLRequest = sb.toString();
 		if(this.parameters == null){
 			this.parameters = new ArrayList<SQLParameter>();
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2010-2017 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.connector.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.identityconnectors.common.StringUtil;
+
+/**
+ * Builds single statement which creates the row or updates it when the row with the same key already exists,
+ * e.g. MERGE (Oracle, SQL Server, DB2, H2), INSERT ... ON CONFLICT (PostgreSQL)
+ * or INSERT ... ON DUPLICATE KEY UPDATE (MySQL, MariaDB). The form is chosen by the {@link SQLDialect}.
+ * The key columns need a unique constraint for ON CONFLICT and ON DUPLICATE KEY forms.
+ *
+ */
+public class UpsertSQLBuilder implements InsertOrUpdateSQL {
+
+	private String nameOfTable = "";
+	private List<String> namesOfColumns = new ArrayList<String>();
+	private List<String> namesOfKeyColumns = new ArrayList<String>();
+	private List<SQLParameter> parameters = null;
+	private final SQLDialect dialect;
+	
+	public UpsertSQLBuilder(SQLDialect dialect) {
+		if(dialect == null){
+			throw new IllegalArgumentException("SQL dialect can not be null.");
+		}
+		this.dialect = dialect;
+	}
+	
+	@Override
+	public SQLRequest build(){
+		
+		if(StringUtil.isBlank(this.nameOfTable)){
+			throw new IllegalArgumentException("Variable nameOfTable can not be empty.");
+		}
+		
+		if(this.namesOfColumns.isEmpty()){
+			throw new IllegalArgumentException("Variable namesOfColumns can not be empty.");
+		}
+		
+		if(this.namesOfKeyColumns.isEmpty()){
+			throw new IllegalArgumentException("Variable namesOfKeyColumns can not be empty.");
+		}
+		
+		for(String key : this.namesOfKeyColumns){
+			if(!this.namesOfColumns.contains(key)){
+				throw new IllegalArgumentException("Value of key column " + key + " is not provided.");
+			}
+		}
+		
+		String sql = this.dialect.buildUpsert(this.dialect.quoteIdentifier(this.nameOfTable), this.namesOfColumns, this.namesOfKeyColumns);
+		return new SQLRequest(sql, this.parameters);
+	}
+	
+	public SQLRequest build(String nameOfTable, List<SQLParameter> parameters, String nameOfKeyColumn){
+		setNameOfTable(nameOfTable);
+		setNameAndValueOfcolumn(parameters);
+		addNameOfKeyColumn(nameOfKeyColumn);
+		
+		return build();
+	}
+	
+	/**
+	 * @param nameOfKeyColumn name of the column which identifies the row, value of the column has to be set too
+	 */
+	public void addNameOfKeyColumn(String nameOfKeyColumn) {
+		if(StringUtil.isBlank(nameOfKeyColumn)){
+			throw new IllegalArgumentException("Name of key column can not be empty.");
+		}
+		this.namesOfKeyColumns.add(this.dialect.quoteIdentifier(nameOfKeyColumn));
+	}
+	
+	/**
+	 * @param nameOfTable the nameOfTable to set
+	 */
+	@Override
+	public void setNameOfTable(String nameOfTable) {
+		this.nameOfTable = nameOfTable;
+	}
+	
+	@Override
+	public void setNameAndValueOfcolumn(List<SQLParameter> parameters){
+		if(parameters == null){
+			throw new IllegalArgumentException("SQL parameters can not be null.");
+		}
+		for (SQLParameter parameter : parameters){
+			setNameAndValueOfColumn(parameter);
+		}
+		
+	}
+	
+	@Override
+	public void setNameAndValueOfColumn(SQLParameter parameter){
+		
+		if(parameter == null){
+			throw new IllegalArgumentException("SQL parameter can not be null.");
+		}
+		
+		String name = parameter.getName();
+		if(name == null){
+			throw new IllegalArgumentException("Name of SQL parameter can not be null.");
+		}
+		
+		this.namesOfColumns.add(this.dialect.quoteIdentifier(name));
+		if(this.parameters == null){
+			this.parameters = new ArrayList<SQLParameter>();
+		}
+		this.parameters.add(parameter);
+	}
+}
@@ -26,7 +26,7 @@ import org.identityconnectors.framework.spi.ConfigurationProperty;
 public class AbstractRestConfiguration extends AbstractConfiguration {
 	
 	public enum AuthMethod {
-        NONE, BASIC, TOKEN
+        NONE, BASIC, TOKEN, OAUTH2_CLIENT_CREDENTIALS
 	}
 	
 	private String serviceAddress = null;
@@ -47,6 +47,44 @@ public class AbstractRestConfiguration extends AbstractConfiguration {
 
     private Integer proxyPort = 8080;
 
+	private Integer maxConnectionsTotal = 50;
+
+	private Integer maxConnectionsPerRoute = 20;
+
+	private Long idleConnectionTimeout = 60000L;
+
+	private Long connectionTimeToLive = 0L;
+
+	private String tokenEndpoint = null;
+
+	private String clientId = null;
+
+	private GuardedString clientSecret = null;
+
+	private String scope = null;
+
+	private Long tokenRefreshMargin = 60000L;
+
+	private Double rateLimitRequestsPerSecond = 0.0;
+
+	private Integer maxConcurrentRequestsPerHost = 0;
+
+	private Integer rateLimitMaxRetries = 5;
+
+	private Long rateLimitMaxBackoff = 60000L;
+
+	private Integer retryMaxAttempts = 1;
+
+	private Long retryBackoff = 500L;
+
+	private Long retryMaxBackoff = 10000L;
+
+	private String[] retryStatusCodes = { "500", "502", "504" };
+
+	private Integer circuitBreakerFailureThreshold = 0;
+
+	private Long circuitBreakerOpenDuration = 30000L;
+
 	public String getServiceAddress() {
 		return serviceAddress;
 	}
@@ -122,10 +160,257 @@ public class AbstractRestConfiguration extends AbstractConfiguration {
         this.proxyPort = proxyPort;
     }
 
+	@ConfigurationProperty(displayMessageKey = "rest.config.maxConnectionsTotal",
+			helpMessageKey = "rest.config.maxConnectionsTotal.help")
+	public Integer getMaxConnectionsTotal() {
+		return maxConnectionsTotal;
+	}
+
+	public void setMaxConnectionsTotal(Integer maxConnectionsTotal) {
+		this.maxConnectionsTotal = maxConnectionsTotal;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.maxConnectionsPerRoute",
+			helpMessageKey = "rest.config.maxConnectionsPerRoute.help")
+	public Integer getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.idleConnectionTimeout",
+			helpMessageKey = "rest.config.idleConnectionTimeout.help")
+	public Long getIdleConnectionTimeout() {
+		return idleConnectionTimeout;
+	}
+
+	public void setIdleConnectionTimeout(Long idleConnectionTimeout) {
+		this.idleConnectionTimeout = idleConnectionTimeout;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.connectionTimeToLive",
+			helpMessageKey = "rest.config.connectionTimeToLive.help")
+	public Long getConnectionTimeToLive() {
+		return connectionTimeToLive;
+	}
+
+	public void setConnectionTimeToLive(Long connectionTimeToLive) {
+		this.connectionTimeToLive = connectionTimeToLive;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.tokenEndpoint",
+			helpMessageKey = "rest.config.tokenEndpoint.help")
+	public String getTokenEndpoint() {
+		return tokenEndpoint;
+	}
+
+	public void setTokenEndpoint(String tokenEndpoint) {
+		this.tokenEndpoint = tokenEndpoint;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.clientId",
+			helpMessageKey = "rest.config.clientId.help")
+	public String getClientId() {
+		return clientId;
+	}
+
+	public void setClientId(String clientId) {
+		this.clientId = clientId;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.clientSecret",
+			helpMessageKey = "rest.config.clientSecret.help", confidential = true)
+	public GuardedString getClientSecret() {
+		return clientSecret;
+	}
+
+	public void setClientSecret(GuardedString clientSecret) {
+		this.clientSecret = clientSecret;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.scope",
+			helpMessageKey = "rest.config.scope.help")
+	public String getScope() {
+		return scope;
+	}
+
+	public void setScope(String scope) {
+		this.scope = scope;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.tokenRefreshMargin",
+			helpMessageKey = "rest.config.tokenRefreshMargin.help")
+	public Long getTokenRefreshMargin() {
+		return tokenRefreshMargin;
+	}
+
+	public void setTokenRefreshMargin(Long tokenRefreshMargin) {
+		this.tokenRefreshMargin = tokenRefreshMargin;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.rateLimitRequestsPerSecond",
+			helpMessageKey = "rest.config.rateLimitRequestsPerSecond.help")
+	public Double getRateLimitRequestsPerSecond() {
+		return rateLimitRequestsPerSecond;
+	}
+
+	public void setRateLimitRequestsPerSecond(Double rateLimitRequestsPerSecond) {
+		this.rateLimitRequestsPerSecond = rateLimitRequestsPerSecond;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.maxConcurrentRequestsPerHost",
+			helpMessageKey = "rest.config.maxConcurrentRequestsPerHost.help")
+	public Integer getMaxConcurrentRequestsPerHost() {
+		return maxConcurrentRequestsPerHost;
+	}
+
+	public void setMaxConcurrentRequestsPerHost(Integer maxConcurrentRequestsPerHost) {
+		this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.rateLimitMaxRetries",
+			helpMessageKey = "rest.config.rateLimitMaxRetries.help")
+	public Integer getRateLimitMaxRetries() {
+		return rateLimitMaxRetries;
+	}
+
+	public void setRateLimitMaxRetries(Integer rateLimitMaxRetries) {
+		this.rateLimitMaxRetries = rateLimitMaxRetries;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.rateLimitMaxBackoff",
+			helpMessageKey = "rest.config.rateLimitMaxBackoff.help")
+	public Long getRateLimitMaxBackoff() {
+		return rateLimitMaxBackoff;
+	}
+
+	public void setRateLimitMaxBackoff(Long rateLimitMaxBackoff) {
+		this.rateLimitMaxBackoff = rateLimitMaxBackoff;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.retryMaxAttempts",
+			helpMessageKey = "rest.config.retryMaxAttempts.help")
+	public Integer getRetryMaxAttempts() {
+		return retryMaxAttempts;
+	}
+
+	public void setRetryMaxAttempts(Integer retryMaxAttempts) {
+		this.retryMaxAttempts = retryMaxAttempts;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.retryBackoff",
+			helpMessageKey = "rest.config.retryBackoff.help")
+	public Long getRetryBackoff() {
+		return retryBackoff;
+	}
+
+	public void setRetryBackoff(Long retryBackoff) {
+		this.retryBackoff = retryBackoff;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.retryMaxBackoff",
+			helpMessageKey = "rest.config.retryMaxBackoff.help")
+	public Long getRetryMaxBackoff() {
+		return retryMaxBackoff;
+	}
+
+	public void setRetryMaxBackoff(Long retryMaxBackoff) {
+		this.retryMaxBackoff = retryMaxBackoff;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.retryStatusCodes",
+			helpMessageKey = "rest.config.retryStatusCodes.help")
+	public String[] getRetryStatusCodes() {
+		return retryStatusCodes;
+	}
+
+	public void setRetryStatusCodes(String[] retryStatusCodes) {
+		this.retryStatusCodes = retryStatusCodes;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.circuitBreakerFailureThreshold",
+			helpMessageKey = "rest.config.circuitBreakerFailureThreshold.help")
+	public Integer getCircuitBreakerFailureThreshold() {
+		return circuitBreakerFailureThreshold;
+	}
+
+	public void setCircuitBreakerFailureThreshold(Integer circuitBreakerFailureThreshold) {
+		this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+	}
+
+	@ConfigurationProperty(displayMessageKey = "rest.config.circuitBreakerOpenDuration",
+			helpMessageKey = "rest.config.circuitBreakerOpenDuration.help")
+	public Long getCircuitBreakerOpenDuration() {
+		return circuitBreakerOpenDuration;
+	}
+
+	public void setCircuitBreakerOpenDuration(Long circuitBreakerOpenDuration) {
+		this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+	}
+
     @Override
 	public void validate() {
-		// TODO Auto-generated method stub
-		
+		if (maxConnectionsTotal == null || maxConnectionsTotal < 1) {
+			throw new IllegalArgumentException("Max connections total has to be greater than zero.");
+		}
+		if (maxConnectionsPerRoute == null || maxConnectionsPerRoute < 1 || maxConnectionsPerRoute > maxConnectionsTotal) {
+			throw new IllegalArgumentException("Max connections per route has to be greater than zero and not greater than max connections total.");
+		}
+		if (idleConnectionTimeout != null && idleConnectionTimeout < 0) {
+			throw new IllegalArgumentException("Idle connection timeout can not be negative.");
+		}
+		if (connectionTimeToLive != null && connectionTimeToLive < 0) {
+			throw new IllegalArgumentException("Connection time to live can not be negative.");
+		}
+		if (rateLimitRequestsPerSecond != null && (rateLimitRequestsPerSecond < 0 || rateLimitRequestsPerSecond.isNaN())) {
+			throw new IllegalArgumentException("Rate limit requests per second can not be negative.");
+		}
+		if (maxConcurrentRequestsPerHost != null && maxConcurrentRequestsPerHost < 0) {
+			throw new IllegalArgumentException("Max concurrent requests per host can not be negative.");
+		}
+		if (rateLimitMaxRetries != null && rateLimitMaxRetries < 0) {
+			throw new IllegalArgumentException("Rate limit max retries can not be negative.");
+		}
+		if (rateLimitMaxBackoff != null && rateLimitMaxBackoff < 0) {
+			throw new IllegalArgumentException("Rate limit max backoff can not be negative.");
+		}
+		if (retryMaxAttempts == null || retryMaxAttempts < 1) {
+			throw new IllegalArgumentException("Retry max attempts has to be greater than zero.");
+		}
+		if (retryBackoff != null && retryBackoff < 0) {
+			throw new IllegalArgumentException("Retry backoff can not be negative.");
+		}
+		if (retryMaxBackoff != null && retryMaxBackoff < 0) {
+			throw new IllegalArgumentException("Retry max backoff can not be negative.");
+		}
+		if (retryStatusCodes != null) {
+			for (String statusCode : retryStatusCodes) {
+				try {
+					Integer.parseInt(statusCode.trim());
+				} catch (NumberFormatException | NullPointerException e) {
+					throw new IllegalArgumentException("Retry status code " + statusCode + " is not a number.");
+				}
+			}
+		}
+		if (circuitBreakerFailureThreshold != null && circuitBreakerFailureThreshold < 0) {
+			throw new IllegalArgumentException("Circuit breaker failure threshold can not be negative.");
+		}
+		if (circuitBreakerOpenDuration != null && circuitBreakerOpenDuration < 0) {
+			throw new IllegalArgumentException("Circuit breaker open duration can not be negative.");
+		}
+		if (AuthMethod.OAUTH2_CLIENT_CREDENTIALS.name().equals(authMethod)) {
+			if (tokenEndpoint == null || tokenEndpoint.isEmpty()) {
+				throw new IllegalArgumentException("Token endpoint is required for OAuth2 client credentials authentication.");
+			}
+			if (clientId == null || clientId.isEmpty()) {
+				throw new IllegalArgumentException("Client ID is required for OAuth2 client credentials authentication.");
+			}
+			if (tokenRefreshMargin == null || tokenRefreshMargin < 0) {
+				throw new IllegalArgumentException("Token refresh margin can not be negative.");
+			}
+		}
 	}
 
 }
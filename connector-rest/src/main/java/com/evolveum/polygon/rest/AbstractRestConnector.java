@@ -15,40 +15,75 @@
  */
 package com.evolveum.polygon.rest;
 
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
-import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
-import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.ParseException;
-import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.net.URIBuilder;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.util.TimeValue;
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.common.logging.Log;
 import org.identityconnectors.common.security.GuardedString;
 import org.identityconnectors.framework.common.exceptions.*;
 import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
 import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.ResultsHandler;
 import org.identityconnectors.framework.spi.Configuration;
 import org.identityconnectors.framework.spi.Connector;
 
 import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author semancik
@@ -57,8 +92,18 @@ public abstract class AbstractRestConnector<C extends AbstractRestConfiguration>
 
     private static final Log LOG = Log.getLog(AbstractRestConnector.class);
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String BEARER_PREFIX = "Bearer ";
+    // lifetime of the token in seconds when the token endpoint does not return it
+    private static final long DEFAULT_TOKEN_EXPIRES_IN = 3600;
+
     private C configuration;
     private CloseableHttpClient httpClient = null;
+    private String tokenHeaderValue = null;
+    private OAuth2TokenCache oauth2TokenCache = null;
+    private RetryPolicy retryPolicy = null;
+    private volatile CloseableHttpAsyncClient asyncHttpClient = null;
+    private final ReentrantLock asyncHttpClientLock = new ReentrantLock();
 
     public AbstractRestConnector() {
         super();
@@ -75,91 +120,599 @@ public abstract class AbstractRestConnector<C extends AbstractRestConfiguration>
         LOG.info("Initializing {0} connector instance {1}", this.getClass().getSimpleName(), this);
         this.configuration = (C) configuration;
         this.httpClient = createHttpClient();
+        this.retryPolicy = new RetryPolicy(getConfiguration());
+        if (AbstractRestConfiguration.AuthMethod.TOKEN.name().equals(getConfiguration().getAuthMethod())) {
+            final StringBuilder token = new StringBuilder();
+            if (getConfiguration().getTokenValue() != null) {
+                getConfiguration().getTokenValue().access(new GuardedString.Accessor() {
+                    @Override
+                    public void access(char[] chars) {
+                        token.append(chars);
+                    }
+                });
+            }
+            this.tokenHeaderValue = token.toString();
+        }
+        if (AbstractRestConfiguration.AuthMethod.OAUTH2_CLIENT_CREDENTIALS.name().equals(getConfiguration().getAuthMethod())) {
+            this.oauth2TokenCache = OAuth2TokenCache.getInstance(getConfiguration());
+        }
     }
 
     private CloseableHttpClient createHttpClient() {
-        HttpClientBuilder httpClientBuilder = HttpClients.custom();
+        PoolingHttpClientConnectionManagerBuilder connectionManagerBuilder = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(configuration.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(configuration.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(createConnectionConfig());
+        if (configuration.getTrustAllCertificates()) {
+            connectionManagerBuilder.setSSLSocketFactory(
+                    new SSLConnectionSocketFactory(createTrustAllSSLContext(), NoopHostnameVerifier.INSTANCE));
+        }
 
-        URI serviceAddress = URI.create(configuration.getServiceAddress());
-        final HttpHost httpHost = new HttpHost(serviceAddress.getScheme(), serviceAddress.getHost(),
-                serviceAddress.getPort());
+        HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManagerBuilder.build())
+                .disableAutomaticRetries()
+                .evictExpiredConnections();
+        if (isIdleConnectionEvictionEnabled()) {
+            httpClientBuilder.evictIdleConnections(TimeValue.ofMilliseconds(configuration.getIdleConnectionTimeout()));
+        }
+
+        BasicCredentialsProvider credentialsProvider = createCredentialsProvider();
+        if (credentialsProvider != null) {
+            httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+        }
+        if (StringUtil.isNotEmpty(getConfiguration().getProxy())) {
+            httpClientBuilder.setRoutePlanner(createProxyRoutePlanner());
+        }
+
+        CloseableHttpClient httpClient = httpClientBuilder.build();
+
+        return httpClient;
+    }
+
+    private CloseableHttpAsyncClient createAsyncHttpClient() {
+        PoolingAsyncClientConnectionManagerBuilder connectionManagerBuilder = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(configuration.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(configuration.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(createConnectionConfig());
+        if (configuration.getTrustAllCertificates()) {
+            connectionManagerBuilder.setTlsStrategy(ClientTlsStrategyBuilder.create()
+                    .setSslContext(createTrustAllSSLContext())
+                    .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                    .build());
+        }
+
+        HttpAsyncClientBuilder httpClientBuilder = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManagerBuilder.build())
+                .disableAutomaticRetries()
+                .evictExpiredConnections();
+        if (isIdleConnectionEvictionEnabled()) {
+            httpClientBuilder.evictIdleConnections(TimeValue.ofMilliseconds(configuration.getIdleConnectionTimeout()));
+        }
+
+        BasicCredentialsProvider credentialsProvider = createCredentialsProvider();
+        if (credentialsProvider != null) {
+            httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+        }
+        if (StringUtil.isNotEmpty(getConfiguration().getProxy())) {
+            httpClientBuilder.setRoutePlanner(createProxyRoutePlanner());
+        }
+
+        CloseableHttpAsyncClient httpClient = httpClientBuilder.build();
+        httpClient.start();
 
+        return httpClient;
+    }
+
+    private BasicCredentialsProvider createCredentialsProvider() {
         switch (AbstractRestConfiguration.AuthMethod.valueOf(getConfiguration().getAuthMethod())) {
             case BASIC:
+                URI serviceAddress = URI.create(configuration.getServiceAddress());
+                final HttpHost httpHost = new HttpHost(serviceAddress.getScheme(), serviceAddress.getHost(),
+                        serviceAddress.getPort());
                 final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
                 configuration.getPassword().access(
                         clearChars -> credentialsProvider.setCredentials(
                                 new AuthScope(httpHost.getHostName(), httpHost.getPort()),
                                 new UsernamePasswordCredentials(configuration.getUsername(), clearChars)));
-                httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
-                break;
+                return credentialsProvider;
 
             case NONE:
-                break;
+                return null;
 
             case TOKEN:
-                break;
+                return null;
+
+            case OAUTH2_CLIENT_CREDENTIALS:
+                return null;
 
             default:
 
                 throw new IllegalArgumentException("Unknown authentication method " + getConfiguration().getAuthMethod());
 
         }
+    }
 
-        if (configuration.getTrustAllCertificates()) {
-            try {
-                final SSLContext sslContext = new SSLContextBuilder()
-                        .loadTrustMaterial(null, (x509CertChain, authType) -> true)
-                        .build();
-                httpClientBuilder.setConnectionManager(
-                        new PoolingHttpClientConnectionManager(
-                                RegistryBuilder.<ConnectionSocketFactory>create()
-                                        .register("http", PlainConnectionSocketFactory.INSTANCE)
-                                        .register("https", new SSLConnectionSocketFactory(sslContext,
-                                                NoopHostnameVerifier.INSTANCE))
-                                        .build()
-                        ));
-            } catch (Exception e) {
-                throw new ConnectorIOException(e.getMessage(), e);
-            }
-        }
-        if (StringUtil.isNotEmpty(getConfiguration().getProxy())) {
-            HttpHost proxy = new HttpHost(getConfiguration().getProxy(), getConfiguration().getProxyPort());
-            DefaultProxyRoutePlanner routePlanner = new DefaultProxyRoutePlanner(proxy);
-            httpClientBuilder.setRoutePlanner(routePlanner);
+    private ConnectionConfig createConnectionConfig() {
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+        Long timeToLive = configuration.getConnectionTimeToLive();
+        if (timeToLive != null && timeToLive > 0) {
+            connectionConfig.setTimeToLive(TimeValue.ofMilliseconds(timeToLive));
         }
+        return connectionConfig.build();
+    }
 
-        CloseableHttpClient httpClient = httpClientBuilder.build();
+    private boolean isIdleConnectionEvictionEnabled() {
+        Long idleTimeout = configuration.getIdleConnectionTimeout();
+        return idleTimeout != null && idleTimeout > 0;
+    }
 
-        return httpClient;
+    private SSLContext createTrustAllSSLContext() {
+        try {
+            return new SSLContextBuilder()
+                    .loadTrustMaterial(null, (x509CertChain, authType) -> true)
+                    .build();
+        } catch (Exception e) {
+            throw new ConnectorIOException(e.getMessage(), e);
+        }
+    }
+
+    private DefaultProxyRoutePlanner createProxyRoutePlanner() {
+        HttpHost proxy = new HttpHost(getConfiguration().getProxy(), getConfiguration().getProxyPort());
+        return new DefaultProxyRoutePlanner(proxy);
     }
 
     public CloseableHttpClient getHttpClient() {
         return httpClient;
     }
 
+    /**
+     * Returns asynchronous HTTP client. The client is created and started on the first use
+     * with the authentication and proxy settings of the classic client. It has its own connection pool
+     * with the same limits, so the connector using both clients can open up to twice the configured
+     * connections; maxConcurrentRequestsPerHost limits requests of both clients together.
+     */
+    public CloseableHttpAsyncClient getAsyncHttpClient() {
+        CloseableHttpAsyncClient client = asyncHttpClient;
+        if (client == null) {
+            asyncHttpClientLock.lock();
+            try {
+                client = asyncHttpClient;
+                if (client == null) {
+                    client = createAsyncHttpClient();
+                    asyncHttpClient = client;
+                }
+            } finally {
+                asyncHttpClientLock.unlock();
+            }
+        }
+        return client;
+    }
+
     /**
      * Executes the request using the HTTP client.
      */
     public CloseableHttpResponse execute(HttpUriRequest request) {
+        RequestThrottle throttle = getThrottle(request);
+        CloseableHttpResponse response = execute(request, throttle);
+        throttle.release();
+        return response;
+    }
+
+    /**
+     * Executes the request, the returned response still holds the concurrency permit of the throttle,
+     * so it has to be released by the caller when the response is read.
+     */
+    private CloseableHttpResponse execute(HttpUriRequest request, RequestThrottle throttle) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(request);
+        boolean repeatable = request.getEntity() == null || request.getEntity().isRepeatable();
+        int throttledAttempts = 0;
+        int failedAttempts = 0;
+        long backoff = 0;
+        while (true) {
+            // the permit is not held while waiting for the next attempt
+            sleep(backoff);
+            checkCircuitBreaker(circuitBreaker, request);
+            authenticate(request);
+            throttle.acquire();
+            boolean returned = false;
+            try {
+                CloseableHttpResponse response;
+                try {
+                    response = getHttpClient().execute(request);
+                } catch (IOException e) {
+                    circuitBreaker.recordFailure();
+                    if (!repeatable || !retryPolicy.isRetryable(request, failedAttempts)) {
+                        throw new ConnectorIOException(e.getMessage(), e);
+                    }
+                    backoff = retryPolicy.getBackoff(failedAttempts++);
+                    LOG.warn("Request {0} {1} failed: {2}, retrying in {3} ms",
+                            request.getMethod(), request.getRequestUri(), e.getMessage(), backoff);
+                    continue;
+                }
+                throttle.update(response);
+                invalidateRejectedToken(request, response.getCode());
+                recordResponse(circuitBreaker, response.getCode());
+
+                if (retryPolicy.isRetryableStatus(response.getCode())) {
+                    if (!repeatable || !retryPolicy.isRetryable(request, failedAttempts)) {
+                        returned = true;
+                        return response;
+                    }
+                    backoff = retryPolicy.getBackoff(failedAttempts++);
+                    LOG.warn("Request {0} {1} failed with HTTP {2}, retrying in {3} ms",
+                            request.getMethod(), request.getRequestUri(), response.getCode(), backoff);
+                    closeResponse(response);
+                } else if (repeatable && isRetryOfThrottledRequest(response.getCode(), throttledAttempts)) {
+                    // the throttle pauses the next attempt
+                    backoff = 0;
+                    long pause = throttle.backOff(response, throttledAttempts++);
+                    LOG.warn("Request {0} {1} was refused with HTTP {2}, retrying in {3} ms",
+                            request.getMethod(), request.getRequestUri(), response.getCode(), pause);
+                    closeResponse(response);
+                } else {
+                    returned = true;
+                    return response;
+                }
+            } finally {
+                if (!returned) {
+                    throttle.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the request using the HTTP client and passes objects from the JSON list response to the handler
+     * while the response is being read. The connection goes back to the pool when the response is read.
+     * When the handler returns false, the rest of the response is not read and the connection is closed.
+     * The request counts to the max concurrent requests per host until the response is read.
+     *
+     * @return true when the whole response was read, false when the handler stopped the reading
+     */
+    public boolean executeStreaming(HttpUriRequest request, JsonResultsReader reader, ResultsHandler handler) {
+        RequestThrottle throttle = getThrottle(request);
+        CloseableHttpResponse response = execute(request, throttle);
         try {
-            if (AbstractRestConfiguration.AuthMethod.TOKEN.name().equals(getConfiguration().getAuthMethod())) {
-
-                final StringBuilder token = new StringBuilder();
-                if (getConfiguration().getTokenValue() != null) {
-                    getConfiguration().getTokenValue().access(new GuardedString.Accessor() {
-                        @Override
-                        public void access(char[] chars) {
-                            token.append(new String(chars));
-                        }
-                    });
+            processResponseErrors(response);
+            boolean completed = false;
+            try {
+                HttpEntity entity = response.getEntity();
+                if (entity == null) {
+                    completed = true;
+                    return true;
+                }
+                completed = reader.read(entity.getContent(), handler);
+                if (completed) {
+                    EntityUtils.consume(entity);
+                }
+                return completed;
+            } catch (IOException e) {
+                throw new ConnectorIOException(e.getMessage(), e);
+            } finally {
+                if (completed) {
+                    closeResponse(response);
+                } else {
+                    // closing the response would read the rest of it to reuse the connection
+                    request.abort();
                 }
+            }
+        } finally {
+            throttle.release();
+        }
+    }
 
-                request.setHeader(getConfiguration().getTokenName(), token.toString());
+    /**
+     * Searches objects in the paged JSON list resource and passes them to the handler. Page N+1 is fetched
+     * using the asynchronous HTTP client while objects of the page N are handled. When the handler returns false,
+     * the fetching of the next page is cancelled.
+     *
+     * @param uriBuilder       builder of the search URI with the search parameters
+     * @param nameOfItemsField name of the field with the array of items in the page, null when the page is the array
+     */
+    public void executePagedSearch(URIBuilder uriBuilder, PagingStrategy paging, String nameOfItemsField,
+                                   JsonObjectConverter converter, ResultsHandler handler) {
+        URI page = paging.getFirstPage(uriBuilder);
+        CompletableFuture<SimpleHttpResponse> pageResponse = executeAsync(createPageRequest(page));
+        try {
+            while (pageResponse != null) {
+                SimpleHttpResponse response = getPageResponse(pageResponse);
+                pageResponse = null;
+                processResponseErrors(response);
+
+                JsonResultsReader reader = new JsonResultsReader(nameOfItemsField, converter);
+                List<ConnectorObject> objects = new ArrayList<>();
+                byte[] body = response.getBodyBytes();
+                if (body != null) {
+                    reader.read(new ByteArrayInputStream(body), objects::add);
+                }
+
+                URI nextPage = paging.getNextPage(page, response, reader);
+                if (nextPage != null && nextPage.equals(page)) {
+                    LOG.warn("Next page {0} is the same as the current page, stopping the paged search", nextPage);
+                } else if (nextPage != null) {
+                    pageResponse = executeAsync(createPageRequest(nextPage));
+                    page = nextPage;
+                }
+
+                for (ConnectorObject object : objects) {
+                    if (!handler.handle(object)) {
+                        return;
+                    }
+                }
             }
-            return getHttpClient().execute(request);
         } catch (IOException e) {
             throw new ConnectorIOException(e.getMessage(), e);
+        } finally {
+            if (pageResponse != null) {
+                pageResponse.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Creates the request for one page of the paged search.
+     */
+    protected SimpleHttpRequest createPageRequest(URI page) {
+        return SimpleRequestBuilder.get(page)
+                .addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType())
+                .build();
+    }
+
+    private SimpleHttpResponse getPageResponse(CompletableFuture<SimpleHttpResponse> pageResponse) {
+        try {
+            return pageResponse.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Paged search was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConnectorIOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Executes the request using the asynchronous HTTP client. The future completes with the response
+     * (also with error responses, see {@link #processResponseErrors(SimpleHttpResponse)}) or exceptionally
+     * with ConnectorIOException when the request fails. Cancelling the future cancels the request.
+     */
+    public CompletableFuture<SimpleHttpResponse> executeAsync(SimpleHttpRequest request) {
+        final CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+        final AtomicReference<Future<SimpleHttpResponse>> future = new AtomicReference<>();
+        result.whenComplete((response, e) -> {
+            Future<SimpleHttpResponse> current = future.get();
+            if (result.isCancelled() && current != null) {
+                current.cancel(true);
+            }
+        });
+        executeAsync(request, getThrottle(request), getCircuitBreaker(request), 0, 0, result, future);
+        return result;
+    }
+
+    private void executeAsync(final SimpleHttpRequest request, final RequestThrottle throttle,
+                              final CircuitBreaker circuitBreaker, final int throttledAttempts, final int failedAttempts,
+                              final CompletableFuture<SimpleHttpResponse> result,
+                              final AtomicReference<Future<SimpleHttpResponse>> future) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            checkCircuitBreaker(circuitBreaker, request);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        // the request waits for the throttle in the scheduler and in the queue of the throttle, not in this thread
+        Runnable send = () -> throttle.acquireAsync(() -> sendAsync(
+                request, throttle, circuitBreaker, throttledAttempts, failedAttempts, result, future));
+        long wait = throttle.reserve();
+        if (wait > 0) {
+            CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS).execute(send);
+        } else {
+            send.run();
+        }
+    }
+
+    /**
+     * Sends the request with the concurrency permit of the throttle taken, the permit is released
+     * when the request finishes.
+     */
+    private void sendAsync(final SimpleHttpRequest request, final RequestThrottle throttle,
+                           final CircuitBreaker circuitBreaker, final int throttledAttempts, final int failedAttempts,
+                           final CompletableFuture<SimpleHttpResponse> result,
+                           final AtomicReference<Future<SimpleHttpResponse>> future) {
+        final Permit permit = new Permit(throttle);
+        if (result.isDone()) {
+            permit.release();
+            return;
+        }
+        try {
+            authenticate(request);
+            future.set(getAsyncHttpClient().execute(request, new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    permit.release();
+                    throttle.update(response);
+                    invalidateRejectedToken(request, response.getCode());
+                    recordResponse(circuitBreaker, response.getCode());
+
+                    if (retryPolicy.isRetryableStatus(response.getCode())) {
+                        if (!retryPolicy.isRetryable(request, failedAttempts)) {
+                            result.complete(response);
+                            return;
+                        }
+                        long backoff = retryPolicy.getBackoff(failedAttempts);
+                        LOG.warn("Request {0} {1} failed with HTTP {2}, retrying in {3} ms",
+                                request.getMethod(), request.getRequestUri(), response.getCode(), backoff);
+                        CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS).execute(() -> executeAsync(
+                                request, throttle, circuitBreaker, throttledAttempts, failedAttempts + 1, result, future));
+                    } else if (isRetryOfThrottledRequest(response.getCode(), throttledAttempts)) {
+                        long backoff = throttle.backOff(response, throttledAttempts);
+                        LOG.warn("Request {0} {1} was refused with HTTP {2}, retrying in {3} ms",
+                                request.getMethod(), request.getRequestUri(), response.getCode(), backoff);
+                        CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS).execute(() -> executeAsync(
+                                request, throttle, circuitBreaker, throttledAttempts + 1, failedAttempts, result, future));
+                    } else {
+                        result.complete(response);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    permit.release();
+                    circuitBreaker.recordFailure();
+                    if (!(e instanceof IOException) || !retryPolicy.isRetryable(request, failedAttempts)) {
+                        result.completeExceptionally(new ConnectorIOException(e.getMessage(), e));
+                        return;
+                    }
+                    long backoff = retryPolicy.getBackoff(failedAttempts);
+                    LOG.warn("Request {0} {1} failed: {2}, retrying in {3} ms",
+                            request.getMethod(), request.getRequestUri(), e.getMessage(), backoff);
+                    CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS).execute(() -> executeAsync(
+                            request, throttle, circuitBreaker, throttledAttempts, failedAttempts + 1, result, future));
+                }
+
+                @Override
+                public void cancelled() {
+                    permit.release();
+                    result.cancel(false);
+                }
+            }));
+        } catch (RuntimeException e) {
+            permit.release();
+            result.completeExceptionally(e);
+            return;
+        }
+        if (result.isCancelled()) {
+            future.get().cancel(true);
+        }
+    }
+
+    private RequestThrottle getThrottle(HttpRequest request) {
+        return RequestThrottle.getInstance(getHost(request), getConfiguration());
+    }
+
+    private CircuitBreaker getCircuitBreaker(HttpRequest request) {
+        return CircuitBreaker.getInstance(getHost(request), getConfiguration());
+    }
+
+    private String getHost(HttpRequest request) {
+        return request.getScheme() + "://" + request.getAuthority();
+    }
+
+    private void checkCircuitBreaker(CircuitBreaker circuitBreaker, HttpRequest request) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new ConnectorIOException("Request " + request.getMethod() + " " + request.getRequestUri()
+                    + " was not sent, circuit breaker for " + getHost(request) + " is open");
+        }
+    }
+
+    private void recordResponse(CircuitBreaker circuitBreaker, int statusCode) {
+        if (retryPolicy.isRetryableStatus(statusCode)) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+    }
+
+    private boolean isRetryOfThrottledRequest(int statusCode, int attempt) {
+        Integer maxRetries = getConfiguration().getRateLimitMaxRetries();
+        return RequestThrottle.isThrottled(statusCode) && maxRetries != null && attempt < maxRetries;
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Waiting for the next attempt of the request was interrupted.", e);
+        }
+    }
+
+    /**
+     * Sets the authentication header on the request when the TOKEN or OAUTH2_CLIENT_CREDENTIALS authentication
+     * method is used.
+     */
+    protected void authenticate(HttpRequest request) {
+        if (tokenHeaderValue != null) {
+            request.setHeader(getConfiguration().getTokenName(), tokenHeaderValue);
+        } else if (oauth2TokenCache != null) {
+            request.setHeader(HttpHeaders.AUTHORIZATION,
+                    BEARER_PREFIX + oauth2TokenCache.getAccessToken(this::fetchAccessToken));
+        }
+    }
+
+    /**
+     * Fetches new access token from the OAuth2 token endpoint using the client credentials grant.
+     * The client authenticates with HTTP Basic authentication.
+     */
+    protected OAuth2TokenCache.AccessToken fetchAccessToken() {
+        List<NameValuePair> parameters = new ArrayList<>();
+        parameters.add(new BasicNameValuePair("grant_type", "client_credentials"));
+        if (StringUtil.isNotBlank(getConfiguration().getScope())) {
+            parameters.add(new BasicNameValuePair("scope", getConfiguration().getScope()));
+        }
+        HttpPost request = new HttpPost(getConfiguration().getTokenEndpoint());
+        request.setEntity(new UrlEncodedFormEntity(parameters, StandardCharsets.UTF_8));
+        request.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        final StringBuilder credentials = new StringBuilder();
+        credentials.append(URLEncoder.encode(getConfiguration().getClientId(), StandardCharsets.UTF_8)).append(':');
+        if (getConfiguration().getClientSecret() != null) {
+            getConfiguration().getClientSecret().access(
+                    chars -> credentials.append(URLEncoder.encode(new String(chars), StandardCharsets.UTF_8)));
+        }
+        request.setHeader(HttpHeaders.AUTHORIZATION, "Basic "
+                + Base64.getEncoder().encodeToString(credentials.toString().getBytes(StandardCharsets.UTF_8)));
+
+        try {
+            return getHttpClient().execute(request, response -> {
+                HttpEntity entity = response.getEntity();
+                int statusCode = response.getCode();
+                if (statusCode < 200 || statusCode > 299) {
+                    String message = "HTTP error " + statusCode + " " + response.getReasonPhrase() + " : "
+                            + (entity == null ? null : EntityUtils.toString(entity));
+                    LOG.error("{0}", message);
+                    throw createResponseException(statusCode, message);
+                }
+                if (entity == null) {
+                    throw new ConnectorIOException("Token response does not contain body");
+                }
+                String accessToken = null;
+                long expiresIn = DEFAULT_TOKEN_EXPIRES_IN;
+                try (JsonParser parser = JSON_FACTORY.createParser(entity.getContent())) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        throw new ConnectorIOException("Expected JSON object in the token response");
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        parser.nextToken();
+                        if ("access_token".equals(name)) {
+                            accessToken = parser.getValueAsString();
+                        } else if ("expires_in".equals(name)) {
+                            expiresIn = parser.getValueAsLong(DEFAULT_TOKEN_EXPIRES_IN);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                if (StringUtil.isEmpty(accessToken)) {
+                    throw new ConnectorIOException("Token response does not contain access token");
+                }
+                return new OAuth2TokenCache.AccessToken(accessToken, expiresIn);
+            });
+        } catch (IOException e) {
+            throw new ConnectorIOException(e.getMessage(), e);
+        }
+    }
+
+    private void invalidateRejectedToken(HttpRequest request, int statusCode) {
+        if (oauth2TokenCache == null || statusCode != 401) {
+            return;
+        }
+        Header authorization = request.getFirstHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.getValue().startsWith(BEARER_PREFIX)) {
+            oauth2TokenCache.invalidate(authorization.getValue().substring(BEARER_PREFIX.length()));
         }
     }
 
@@ -196,33 +749,51 @@ public abstract class AbstractRestConnector<C extends AbstractRestConfiguration>
 
         String message = "HTTP error " + statusCode + " " + response.getReasonPhrase() + " : " + responseBody;
         LOG.error("{0}", message);
+        closeResponse(response);
+        throw createResponseException(statusCode, message);
+    }
+
+    /**
+     * Checks asynchronous HTTP response for errors. If the response is an error then the method
+     * throws the ConnId exception that is the most appropriate match for the error.
+     */
+    public void processResponseErrors(SimpleHttpResponse response) {
+        int statusCode = response.getCode();
+        if (statusCode >= 200 && statusCode <= 299) {
+            return;
+        }
+        String message = "HTTP error " + statusCode + " " + response.getReasonPhrase() + " : " + response.getBodyText();
+        LOG.error("{0}", message);
+        throw createResponseException(statusCode, message);
+    }
+
+    /**
+     * Returns the ConnId exception that is the most appropriate match for the HTTP error status code.
+     */
+    protected RuntimeException createResponseException(int statusCode, String message) {
         if (statusCode == 400 || statusCode == 405 || statusCode == 406) {
-            closeResponse(response);
-            throw new ConnectorIOException(message);
+            return new ConnectorIOException(message);
         }
         if (statusCode == 401 || statusCode == 402 || statusCode == 403 || statusCode == 407) {
-            closeResponse(response);
-            throw new PermissionDeniedException(message);
+            return new PermissionDeniedException(message);
         }
         if (statusCode == 404 || statusCode == 410) {
-            closeResponse(response);
-            throw new UnknownUidException(message);
+            return new UnknownUidException(message);
         }
         if (statusCode == 408) {
-            closeResponse(response);
-            throw new OperationTimeoutException(message);
+            return new OperationTimeoutException(message);
         }
         if (statusCode == 412) {
-            closeResponse(response);
-            throw new PreconditionFailedException(message);
+            return new PreconditionFailedException(message);
+        }
+        if (statusCode == 429 || statusCode == 503) {
+            return RetryableException.wrap(message, (Throwable) null);
         }
         if (statusCode == 418) {
-            closeResponse(response);
-            throw new UnsupportedOperationException("Sorry, no cofee: " + message);
+            return new UnsupportedOperationException("Sorry, no cofee: " + message);
         }
         // TODO: other codes
-        closeResponse(response);
-        throw new ConnectorException(message);
+        return new ConnectorException(message);
     }
 
     protected void closeResponse(CloseableHttpResponse response) {
@@ -244,6 +815,15 @@ public abstract class AbstractRestConnector<C extends AbstractRestConfiguration>
                 LOG.error("Error closing HTTP client: {0}", e.getMessage(), e);
             }
         }
+        asyncHttpClientLock.lock();
+        try {
+            if (asyncHttpClient != null) {
+                asyncHttpClient.close(CloseMode.GRACEFUL);
+                asyncHttpClient = null;
+            }
+        } finally {
+            asyncHttpClientLock.unlock();
+        }
     }
 
     protected String getStringAttr(Set<Attribute> attributes, String attrName) throws InvalidAttributeValueException {
@@ -341,4 +921,23 @@ public abstract class AbstractRestConnector<C extends AbstractRestConfiguration>
         return attrVal;
     }
 
+
+    /**
+     * Concurrency permit of one attempt of the asynchronous request, released only once.
+     */
+    private static final class Permit {
+
+        private final RequestThrottle throttle;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(RequestThrottle throttle) {
+            this.throttle = throttle;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                throttle.release();
+            }
+        }
+    }
 }
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.identityconnectors.common.logging.Log;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker of requests to one host, shared by all connector instances with the same settings.
+ * After the given count of consecutive failures the circuit opens and requests fail immediately without
+ * being sent. When the open duration passes, one probe request is let through: its success closes the circuit,
+ * its failure opens it again.
+ */
+public final class CircuitBreaker {
+
+    private static final Log LOG = Log.getLog(CircuitBreaker.class);
+
+    private static final ConcurrentHashMap<String, CircuitBreaker> CIRCUIT_BREAKERS = new ConcurrentHashMap<>();
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String host;
+    private final int failureThreshold;
+    private final long openDuration;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile State state = State.CLOSED;
+    private volatile int countOfFailures = 0;
+    private long changedAt;
+
+    private CircuitBreaker(String host, int failureThreshold, long openDuration) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = TimeUnit.MILLISECONDS.toNanos(openDuration);
+    }
+
+    /**
+     * @param host scheme and authority of the requests, e.g. 'https://api.example.com:443'
+     */
+    public static CircuitBreaker getInstance(String host, AbstractRestConfiguration configuration) {
+        int failureThreshold = configuration.getCircuitBreakerFailureThreshold() == null ? 0 : configuration.getCircuitBreakerFailureThreshold();
+        long openDuration = configuration.getCircuitBreakerOpenDuration() == null ? 0 : configuration.getCircuitBreakerOpenDuration();
+        String key = host + '\n' + failureThreshold + '\n' + openDuration;
+        return CIRCUIT_BREAKERS.computeIfAbsent(key, k -> new CircuitBreaker(host, failureThreshold, openDuration));
+    }
+
+    /**
+     * @return true when the request can be sent, false when the circuit is open
+     */
+    public boolean tryAcquire() {
+        if (failureThreshold <= 0 || state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            switch (state) {
+                case OPEN:
+                    if (now - changedAt < openDuration) {
+                        return false;
+                    }
+                    LOG.info("Circuit breaker for {0} is half-open, sending probe request", host);
+                    state = State.HALF_OPEN;
+                    changedAt = now;
+                    return true;
+                case HALF_OPEN:
+                    // the probe request which was not finished is replaced by the new one
+                    if (now - changedAt < openDuration) {
+                        return false;
+                    }
+                    changedAt = now;
+                    return true;
+                default:
+                    return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordSuccess() {
+        if (failureThreshold <= 0 || (state == State.CLOSED && countOfFailures == 0)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (state != State.CLOSED) {
+                LOG.info("Circuit breaker for {0} is closed", host);
+            }
+            state = State.CLOSED;
+            countOfFailures = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordFailure() {
+        if (failureThreshold <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            countOfFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && countOfFailures >= failureThreshold)) {
+                LOG.warn("Circuit breaker for {0} is open after {1} consecutive failures", host, countOfFailures);
+                state = State.OPEN;
+                changedAt = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
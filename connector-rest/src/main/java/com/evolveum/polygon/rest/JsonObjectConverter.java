@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+
+import java.util.Map;
+
+/**
+ * Converts one JSON object read by {@link JsonResultsReader} to the connector object.
+ */
+public interface JsonObjectConverter {
+
+    /**
+     * @param item JSON object, nested objects are maps, arrays are lists and values are String, Boolean,
+     *             Integer, Long, BigInteger, Double or BigDecimal
+     * @return connector object or null when the item should be skipped
+     */
+    ConnectorObject convert(Map<String, Object> item);
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import org.identityconnectors.framework.common.exceptions.ConnectorIOException;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ResultsHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental reader of JSON list responses. Items of the array are parsed one by one from the stream,
+ * converted to connector objects and passed to the results handler, so only one item is held in memory.
+ * The array is either the root of the document or the value of the field with the given name in the root
+ * object, other fields of the root object (e.g. total count or next page link) are available as metadata.
+ * <p/>
+ * Instance holds state of one response and it is not thread-safe.
+ */
+public class JsonResultsReader {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+
+    private final String nameOfItemsField;
+    private final JsonObjectConverter converter;
+
+    private final Map<String, Object> metadata = new LinkedHashMap<>();
+    private int countOfItems = 0;
+
+    /**
+     * @param nameOfItemsField name of the field in the root object with the array of items,
+     *                         null when the root of the document is the array
+     */
+    public JsonResultsReader(String nameOfItemsField, JsonObjectConverter converter) {
+        if (converter == null) {
+            throw new IllegalArgumentException("Converter can not be null.");
+        }
+        this.nameOfItemsField = nameOfItemsField;
+        this.converter = converter;
+    }
+
+    /**
+     * Reads the document from the stream. The stream is not closed. When the handler returns false,
+     * the reading stops and the rest of the stream is left unread.
+     *
+     * @return true when the whole document was read, false when the handler stopped the reading
+     */
+    public boolean read(InputStream in, ResultsHandler handler) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return true;
+            }
+            if (nameOfItemsField == null) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new ConnectorIOException("Expected JSON array in the response, but got " + token);
+                }
+                return readItems(parser, handler);
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new ConnectorIOException("Expected JSON object in the response, but got " + token);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                if (!nameOfItemsField.equals(name)) {
+                    metadata.put(name, readValue(parser));
+                } else if (token == JsonToken.START_ARRAY) {
+                    if (!readItems(parser, handler)) {
+                        return false;
+                    }
+                } else if (token != JsonToken.VALUE_NULL) {
+                    throw new ConnectorIOException("Expected JSON array in the field " + name + ", but got " + token);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return values of the fields of the root object other than the array of items, which were read
+     * until now
+     */
+    public Map<String, Object> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * @return count of items which were read until now, including skipped ones
+     */
+    public int getCountOfItems() {
+        return countOfItems;
+    }
+
+    private boolean readItems(JsonParser parser, ResultsHandler handler) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new ConnectorIOException("Expected JSON object as item of the array, but got " + token);
+            }
+            countOfItems++;
+            ConnectorObject object = converter.convert(readObject(parser));
+            if (object != null && !handler.handle(object)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                List<Object> values = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(readValue(parser));
+                }
+                return values;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new ConnectorIOException("Unexpected JSON token " + parser.currentToken());
+        }
+    }
+
+    private Map<String, Object> readObject(JsonParser parser) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            object.put(name, readValue(parser));
+        }
+        return object;
+    }
+}
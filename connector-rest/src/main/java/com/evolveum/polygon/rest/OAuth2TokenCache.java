@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the OAuth2 access token shared by all connector instances with the same token endpoint and client.
+ * The token is refreshed when it is closer to the expiration than the refresh margin. Only one caller fetches
+ * the new token, other callers use the old token while it is still valid or wait for the fetch in progress.
+ */
+public final class OAuth2TokenCache {
+
+    private static final Log LOG = Log.getLog(OAuth2TokenCache.class);
+
+    private static final ConcurrentHashMap<String, OAuth2TokenCache> CACHES = new ConcurrentHashMap<>();
+
+    private final long refreshMargin;
+
+    private volatile AccessToken token = null;
+    private CompletableFuture<AccessToken> refresh = null;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private OAuth2TokenCache(long refreshMargin) {
+        this.refreshMargin = refreshMargin;
+    }
+
+    /**
+     * @return cache of the token for the token endpoint, client and scope from the configuration
+     */
+    public static OAuth2TokenCache getInstance(AbstractRestConfiguration configuration) {
+        StringBuilder key = new StringBuilder();
+        key.append(configuration.getTokenEndpoint()).append('\n')
+                .append(configuration.getClientId()).append('\n')
+                .append(configuration.getScope()).append('\n')
+                .append(configuration.getTokenRefreshMargin()).append('\n');
+        if (configuration.getClientSecret() != null) {
+            configuration.getClientSecret().access(chars -> key.append(hash(chars)));
+        }
+        long refreshMargin = configuration.getTokenRefreshMargin() == null ? 0 : configuration.getTokenRefreshMargin();
+        return CACHES.computeIfAbsent(key.toString(), k -> new OAuth2TokenCache(refreshMargin));
+    }
+
+    /**
+     * Returns the cached access token, the new token is fetched using the fetcher when the cached token
+     * has to be refreshed.
+     */
+    public String getAccessToken(Supplier<AccessToken> fetcher) {
+        AccessToken current = token;
+        long now = System.nanoTime();
+        if (current != null && !current.isRefreshNeeded(now)) {
+            return current.getValue();
+        }
+
+        CompletableFuture<AccessToken> flight;
+        boolean fetching = false;
+        lock.lock();
+        try {
+            current = token;
+            if (current != null && !current.isRefreshNeeded(now)) {
+                return current.getValue();
+            }
+            flight = refresh;
+            if (flight == null) {
+                flight = new CompletableFuture<>();
+                refresh = flight;
+                fetching = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (fetching) {
+            return fetch(fetcher, flight).getValue();
+        }
+        if (current != null && !current.isExpired(now)) {
+            return current.getValue();
+        }
+        return await(flight).getValue();
+    }
+
+    /**
+     * Removes the token from the cache, e.g. when it was rejected by the service. The token is removed
+     * only when it is still the cached one, so the token which was already refreshed is kept.
+     */
+    public void invalidate(String value) {
+        lock.lock();
+        try {
+            if (token != null && token.getValue().equals(value)) {
+                token = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AccessToken fetch(Supplier<AccessToken> fetcher, CompletableFuture<AccessToken> flight) {
+        try {
+            AccessToken fetched = fetcher.get();
+            fetched.refreshAt = fetched.expiresAt - Math.min(TimeUnit.MILLISECONDS.toNanos(refreshMargin),
+                    (fetched.expiresAt - System.nanoTime()) / 2);
+            token = fetched;
+            flight.complete(fetched);
+            LOG.ok("Fetched new OAuth2 access token");
+            return fetched;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            lock.lock();
+            try {
+                refresh = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private AccessToken await(CompletableFuture<AccessToken> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Waiting for OAuth2 access token was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConnectorException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static String hash(char[] chars) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(new String(chars).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new ConnectorException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * OAuth2 access token with its expiration.
+     */
+    public static final class AccessToken {
+
+        private final String value;
+        private final long expiresAt;
+        private long refreshAt;
+
+        /**
+         * @param expiresIn lifetime of the token in seconds
+         */
+        public AccessToken(String value, long expiresIn) {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("Access token can not be empty.");
+            }
+            this.value = value;
+            this.expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(expiresIn);
+            this.refreshAt = expiresAt;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        private boolean isRefreshNeeded(long now) {
+            return now - refreshAt >= 0;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
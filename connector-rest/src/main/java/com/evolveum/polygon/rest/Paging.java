@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.net.URIBuilder;
+import org.identityconnectors.common.StringUtil;
+import org.identityconnectors.framework.common.exceptions.ConnectorIOException;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+/**
+ * Paging strategies of common REST services.
+ */
+public final class Paging {
+
+    private Paging() {
+    }
+
+    /**
+     * Paging by the index of the first item and the count of items in the page, e.g. '?offset=200&limit=100'.
+     * The page with less items than the page size is the last one.
+     */
+    public static PagingStrategy offset(String offsetParameter, String limitParameter, int pageSize, int firstOffset) {
+        checkPageSize(pageSize);
+        return new PagingStrategy() {
+            @Override
+            public URI getFirstPage(URIBuilder uriBuilder) {
+                return build(uriBuilder
+                        .setParameter(offsetParameter, String.valueOf(firstOffset))
+                        .setParameter(limitParameter, String.valueOf(pageSize)));
+            }
+
+            @Override
+            public URI getNextPage(URI currentPage, SimpleHttpResponse response, JsonResultsReader reader) {
+                if (reader.getCountOfItems() < pageSize) {
+                    return null;
+                }
+                URIBuilder uriBuilder = new URIBuilder(currentPage);
+                long offset = Long.parseLong(getParameter(uriBuilder, offsetParameter));
+                return build(uriBuilder.setParameter(offsetParameter, String.valueOf(offset + reader.getCountOfItems())));
+            }
+        };
+    }
+
+    /**
+     * Paging by the number of the page, e.g. '?page=3&per_page=100'. The page with less items than
+     * the page size is the last one.
+     */
+    public static PagingStrategy pageNumber(String pageParameter, String pageSizeParameter, int pageSize, int firstPage) {
+        checkPageSize(pageSize);
+        return new PagingStrategy() {
+            @Override
+            public URI getFirstPage(URIBuilder uriBuilder) {
+                return build(uriBuilder
+                        .setParameter(pageParameter, String.valueOf(firstPage))
+                        .setParameter(pageSizeParameter, String.valueOf(pageSize)));
+            }
+
+            @Override
+            public URI getNextPage(URI currentPage, SimpleHttpResponse response, JsonResultsReader reader) {
+                if (reader.getCountOfItems() < pageSize) {
+                    return null;
+                }
+                URIBuilder uriBuilder = new URIBuilder(currentPage);
+                long page = Long.parseLong(getParameter(uriBuilder, pageParameter));
+                return build(uriBuilder.setParameter(pageParameter, String.valueOf(page + 1)));
+            }
+        };
+    }
+
+    /**
+     * Paging by the opaque cursor returned in the response body, e.g. '?cursor=dXNlcjoxMDA&limit=100'.
+     * The cursor is read from the field of the root object, nested fields are separated by dot
+     * (e.g. 'meta.next_cursor'). The page without cursor or without items is the last one.
+     *
+     * @param pageSizeParameter name of the page size parameter, null when the page size is not sent
+     */
+    public static PagingStrategy cursor(String cursorParameter, String cursorField, String pageSizeParameter, int pageSize) {
+        checkPageSize(pageSize);
+        return new PagingStrategy() {
+            @Override
+            public URI getFirstPage(URIBuilder uriBuilder) {
+                if (pageSizeParameter != null) {
+                    uriBuilder.setParameter(pageSizeParameter, String.valueOf(pageSize));
+                }
+                return build(uriBuilder);
+            }
+
+            @Override
+            public URI getNextPage(URI currentPage, SimpleHttpResponse response, JsonResultsReader reader) {
+                Object cursor = getMetadata(reader, cursorField);
+                if (cursor == null || StringUtil.isEmpty(cursor.toString()) || reader.getCountOfItems() == 0) {
+                    return null;
+                }
+                return build(new URIBuilder(currentPage).setParameter(cursorParameter, cursor.toString()));
+            }
+        };
+    }
+
+    /**
+     * Paging by the link to the next page returned in the response body, e.g. '"next": "/users?page=2"'.
+     * The link is read from the field of the root object, nested fields are separated by dot
+     * (e.g. 'links.next'). Relative link is resolved against the URI of the current page.
+     */
+    public static PagingStrategy nextLink(String nextLinkField) {
+        return new PagingStrategy() {
+            @Override
+            public URI getFirstPage(URIBuilder uriBuilder) {
+                return build(uriBuilder);
+            }
+
+            @Override
+            public URI getNextPage(URI currentPage, SimpleHttpResponse response, JsonResultsReader reader) {
+                Object link = getMetadata(reader, nextLinkField);
+                if (link == null || StringUtil.isEmpty(link.toString())) {
+                    return null;
+                }
+                return currentPage.resolve(link.toString());
+            }
+        };
+    }
+
+    /**
+     * Paging by the link with relation 'next' in the RFC 5988 Link header, e.g.
+     * 'Link: &lt;https://api.example.com/users?page=2&gt;; rel="next"'.
+     *
+     * @param pageSizeParameter name of the page size parameter, null when the page size is not sent
+     */
+    public static PagingStrategy linkHeader(String pageSizeParameter, int pageSize) {
+        checkPageSize(pageSize);
+        return new PagingStrategy() {
+            @Override
+            public URI getFirstPage(URIBuilder uriBuilder) {
+                if (pageSizeParameter != null) {
+                    uriBuilder.setParameter(pageSizeParameter, String.valueOf(pageSize));
+                }
+                return build(uriBuilder);
+            }
+
+            @Override
+            public URI getNextPage(URI currentPage, SimpleHttpResponse response, JsonResultsReader reader) {
+                for (Header header : response.getHeaders("Link")) {
+                    String link = getNextLink(header.getValue());
+                    if (link != null) {
+                        return currentPage.resolve(link);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return target of the link with relation 'next' from the value of the Link header or null
+     */
+    static String getNextLink(String value) {
+        int i = 0;
+        while (i < value.length()) {
+            int start = value.indexOf('<', i);
+            if (start == -1) {
+                return null;
+            }
+            int end = value.indexOf('>', start);
+            if (end == -1) {
+                return null;
+            }
+            // parameters of the link end with the comma outside of quotes
+            int next = end + 1;
+            boolean quoted = false;
+            while (next < value.length() && (quoted || value.charAt(next) != ',')) {
+                if (value.charAt(next) == '"') {
+                    quoted = !quoted;
+                }
+                next++;
+            }
+            for (String parameter : value.substring(end + 1, next).split(";")) {
+                int equals = parameter.indexOf('=');
+                if (equals == -1 || !"rel".equalsIgnoreCase(parameter.substring(0, equals).trim())) {
+                    continue;
+                }
+                String relations = parameter.substring(equals + 1).trim().replace("\"", "");
+                for (String relation : relations.split("\\s+")) {
+                    if ("next".equalsIgnoreCase(relation)) {
+                        return value.substring(start + 1, end).trim();
+                    }
+                }
+            }
+            i = next + 1;
+        }
+        return null;
+    }
+
+    private static Object getMetadata(JsonResultsReader reader, String path) {
+        Object value = reader.getMetadata();
+        for (String name : path.split("\\.")) {
+            if (!(value instanceof Map)) {
+                return null;
+            }
+            value = ((Map<?, ?>) value).get(name);
+        }
+        return value;
+    }
+
+    private static String getParameter(URIBuilder uriBuilder, String name) {
+        NameValuePair parameter = uriBuilder.getFirstQueryParam(name);
+        if (parameter == null) {
+            throw new ConnectorIOException("Parameter " + name + " is missing in the URI of the page");
+        }
+        return parameter.getValue();
+    }
+
+    private static URI build(URIBuilder uriBuilder) {
+        try {
+            return uriBuilder.build();
+        } catch (URISyntaxException e) {
+            throw new ConnectorIOException(e.getMessage(), e);
+        }
+    }
+
+    private static void checkPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size has to be greater than zero.");
+        }
+    }
+}
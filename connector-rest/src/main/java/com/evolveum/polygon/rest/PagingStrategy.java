@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.net.URIBuilder;
+
+import java.net.URI;
+
+/**
+ * Way how the REST service splits list results to pages, used by
+ * {@link AbstractRestConnector#executePagedSearch}.
+ * Common strategies are created by {@link Paging}.
+ */
+public interface PagingStrategy {
+
+    /**
+     * @param uriBuilder builder of the search URI, the strategy adds parameters of the first page to it
+     * @return URI of the first page
+     */
+    URI getFirstPage(URIBuilder uriBuilder);
+
+    /**
+     * @param currentPage URI of the page which was read
+     * @param response    response with the page, body of the response was already read by the reader
+     * @param reader      reader of the page with count of items and metadata of the page
+     * @return URI of the next page or null when the page is the last one
+     */
+    URI getNextPage(URI currentPage, SimpleHttpResponse response, JsonResultsReader reader);
+}
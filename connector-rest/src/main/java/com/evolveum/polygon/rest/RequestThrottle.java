@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side throttling of requests to one host, shared by all connector instances with the same settings.
+ * Requests take tokens from the token bucket, whose rate is the configured rate or the rate derived from
+ * the rate limit headers of responses (remaining requests until the reset of the quota window), whichever
+ * is lower. Retry-After header and exhausted quota pause all requests to the host. Count of concurrent
+ * requests to the host can be limited too. Asynchronous requests do not block: they are delayed by
+ * {@link #reserve()} and queued by {@link #acquireAsync(Runnable)} while there is no free permit.
+ */
+public final class RequestThrottle {
+
+    private static final Log LOG = Log.getLog(RequestThrottle.class);
+
+    private static final ConcurrentHashMap<String, RequestThrottle> THROTTLES = new ConcurrentHashMap<>();
+
+    private static final String[] REMAINING_HEADERS = {"X-RateLimit-Remaining", "RateLimit-Remaining"};
+    private static final String[] RESET_HEADERS = {"X-RateLimit-Reset", "RateLimit-Reset"};
+    // reset header values greater than this are epoch seconds, smaller ones are seconds until the reset
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+    private static final long INITIAL_BACKOFF = 500;
+
+    private final double configuredRate;
+    private final long maxBackoff;
+    private final Semaphore concurrency;
+    private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double rate;
+    private double tokens;
+    private long updatedAt;
+    private long pausedUntil;
+
+    private RequestThrottle(double configuredRate, int maxConcurrentRequests, long maxBackoff) {
+        this.configuredRate = configuredRate;
+        this.maxBackoff = maxBackoff;
+        this.concurrency = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests, true) : null;
+        this.rate = configuredRate;
+        this.tokens = Math.max(1, configuredRate);
+        this.updatedAt = System.nanoTime();
+        this.pausedUntil = updatedAt;
+    }
+
+    /**
+     * @param host scheme and authority of the requests, e.g. 'https://api.example.com:443'
+     */
+    public static RequestThrottle getInstance(String host, AbstractRestConfiguration configuration) {
+        double rate = configuration.getRateLimitRequestsPerSecond() == null ? 0 : configuration.getRateLimitRequestsPerSecond();
+        int maxConcurrentRequests = configuration.getMaxConcurrentRequestsPerHost() == null ? 0 : configuration.getMaxConcurrentRequestsPerHost();
+        long maxBackoff = configuration.getRateLimitMaxBackoff() == null ? 0 : configuration.getRateLimitMaxBackoff();
+        String key = host + '\n' + rate + '\n' + maxConcurrentRequests + '\n' + maxBackoff;
+        return THROTTLES.computeIfAbsent(key, k -> new RequestThrottle(rate, maxConcurrentRequests, maxBackoff));
+    }
+
+    /**
+     * @return true when the response status means that the request was refused because of the load
+     * and it can be sent again later
+     */
+    public static boolean isThrottled(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    /**
+     * Waits until the request can be sent. Every successful call has to be followed by {@link #release()}.
+     */
+    public void acquire() {
+        try {
+            long wait = reserve();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            if (concurrency != null) {
+                concurrency.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Waiting for the request throttle was interrupted.", e);
+        }
+    }
+
+    /**
+     * Takes the concurrency permit when it is free. Successful call has to be followed by {@link #release()}.
+     *
+     * @return true when the permit was taken or the concurrency is not limited
+     */
+    public boolean tryAcquire() {
+        return concurrency == null || concurrency.tryAcquire();
+    }
+
+    /**
+     * Runs the task with the concurrency permit taken, the task has to be followed by {@link #release()}.
+     * The task runs in the calling thread when the permit is free, otherwise it is queued and runs
+     * in the common pool when the permit is released. Token bucket is not involved, see {@link #reserve()}.
+     */
+    public void acquireAsync(Runnable task) {
+        if (waiting.isEmpty() && tryAcquire()) {
+            task.run();
+            return;
+        }
+        waiting.add(task);
+        dispatch();
+    }
+
+    public void release() {
+        if (concurrency != null) {
+            concurrency.release();
+            dispatch();
+        }
+    }
+
+    private void dispatch() {
+        while (!waiting.isEmpty() && concurrency.tryAcquire()) {
+            Runnable task = waiting.poll();
+            if (task == null) {
+                // the queue was emptied by another thread, the queue is checked again after the release
+                concurrency.release();
+                continue;
+            }
+            CompletableFuture.runAsync(task);
+        }
+    }
+
+    /**
+     * Adjusts the rate and pauses the requests according to the rate limit and Retry-After headers
+     * of the response.
+     */
+    public void update(HttpResponse response) {
+        Long remaining = getLongHeader(response, REMAINING_HEADERS);
+        Long reset = getLongHeader(response, RESET_HEADERS);
+        long retryAfter = isThrottled(response.getCode()) ? getRetryAfter(response) : -1;
+        if ((remaining == null || reset == null) && retryAfter < 0) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            if (remaining != null && reset != null) {
+                long untilReset = reset > EPOCH_SECONDS_THRESHOLD
+                        ? TimeUnit.SECONDS.toNanos(reset) - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis())
+                        : TimeUnit.SECONDS.toNanos(reset);
+                untilReset = Math.max(untilReset, TimeUnit.SECONDS.toNanos(1));
+                if (remaining <= 0) {
+                    pause(now, untilReset);
+                } else {
+                    double quotaRate = remaining / (untilReset / 1e9);
+                    rate = configuredRate > 0 ? Math.min(configuredRate, quotaRate) : quotaRate;
+                    tokens = Math.min(tokens, Math.min(remaining, Math.max(1, rate)));
+                }
+            }
+            if (retryAfter >= 0) {
+                pause(now, TimeUnit.MILLISECONDS.toNanos(Math.min(retryAfter, maxBackoff)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pauses requests to the host after the response refused because of the load. The pause is given
+     * by the Retry-After header or by the exponential backoff with jitter.
+     *
+     * @param attempt number of the refused attempt starting from zero
+     * @return length of the pause in milliseconds
+     */
+    public long backOff(HttpResponse response, int attempt) {
+        long backoff = getRetryAfter(response);
+        if (backoff >= 0) {
+            backoff = Math.min(backoff, maxBackoff);
+        } else {
+            long ceiling = Math.min(maxBackoff, INITIAL_BACKOFF << Math.min(attempt, 20));
+            backoff = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        }
+        lock.lock();
+        try {
+            pause(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(backoff));
+        } finally {
+            lock.unlock();
+        }
+        return backoff;
+    }
+
+    /**
+     * Takes the token of the request from the token bucket without waiting.
+     *
+     * @return time in nanoseconds to wait before the request is sent
+     */
+    public long reserve() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            long wait = Math.max(0, pausedUntil - now);
+            if (rate > 0) {
+                tokens -= 1;
+                if (tokens < 0) {
+                    wait += (long) (-tokens / rate * 1e9);
+                }
+            }
+            return wait;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        if (rate > 0) {
+            tokens = Math.min(Math.max(1, rate), tokens + (now - updatedAt) / 1e9 * rate);
+        }
+        updatedAt = now;
+    }
+
+    private void pause(long now, long duration) {
+        if (now + duration - pausedUntil > 0) {
+            pausedUntil = now + duration;
+            LOG.ok("Requests are paused for {0} ms", TimeUnit.NANOSECONDS.toMillis(duration));
+        }
+    }
+
+    /**
+     * @return value of the Retry-After header in milliseconds or -1 when the header is missing
+     */
+    private static long getRetryAfter(HttpResponse response) {
+        Header header = response.getFirstHeader("Retry-After");
+        if (header == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            if (date == null) {
+                return -1;
+            }
+            return Math.max(0, date.toEpochMilli() - System.currentTimeMillis());
+        }
+    }
+
+    private static Long getLongHeader(HttpResponse response, String[] names) {
+        for (String name : names) {
+            Header header = response.getFirstHeader(name);
+            if (header != null) {
+                try {
+                    return Long.parseLong(header.getValue().trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
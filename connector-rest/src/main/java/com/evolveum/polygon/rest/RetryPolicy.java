@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2016 Evolveum
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.polygon.rest;
+
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Method;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy for sending again the idempotent requests which failed with I/O error or with one of the retryable
+ * status codes. Attempts are delayed by the exponential backoff with jitter.
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long backoff;
+    private final long maxBackoff;
+    private final Set<Integer> statusCodes;
+
+    public RetryPolicy(AbstractRestConfiguration configuration) {
+        this.maxAttempts = configuration.getRetryMaxAttempts() == null ? 1 : configuration.getRetryMaxAttempts();
+        this.backoff = configuration.getRetryBackoff() == null ? 0 : configuration.getRetryBackoff();
+        this.maxBackoff = configuration.getRetryMaxBackoff() == null ? backoff : configuration.getRetryMaxBackoff();
+        Set<Integer> statusCodes = new HashSet<>();
+        if (configuration.getRetryStatusCodes() != null) {
+            for (String statusCode : configuration.getRetryStatusCodes()) {
+                statusCodes.add(Integer.valueOf(statusCode.trim()));
+            }
+        }
+        this.statusCodes = Collections.unmodifiableSet(statusCodes);
+    }
+
+    /**
+     * @param failedAttempts count of failed attempts of the request
+     * @return true when the request can be sent again
+     */
+    public boolean isRetryable(HttpRequest request, int failedAttempts) {
+        return failedAttempts + 1 < maxAttempts && Method.isIdempotent(request.getMethod());
+    }
+
+    public boolean isRetryableStatus(int statusCode) {
+        return statusCodes.contains(statusCode);
+    }
+
+    /**
+     * @param failedAttempts count of failed attempts of the request before the last one
+     * @return time in milliseconds to wait before the next attempt
+     */
+    public long getBackoff(int failedAttempts) {
+        long ceiling = Math.min(maxBackoff, backoff << Math.min(failedAttempts, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+}